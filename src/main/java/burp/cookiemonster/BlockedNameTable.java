@@ -0,0 +1,344 @@
+package burp.cookiemonster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Immutable open-addressing hash table of blocked cookie names.
+ * Names are packed into a single byte array with precomputed hashes, so membership
+ * can be answered straight from a slice of a raw header, either as bytes or as
+ * characters, without creating a {@code String} or any other object.
+ * Case-insensitive tables fold ASCII letters only, which covers every valid
+ * cookie-name token.
+ */
+public final class BlockedNameTable {
+    private static final BlockedNameTable EMPTY = build(Collections.emptySet(), false);
+
+    private static final int FNV_OFFSET = 0x811C9DC5;
+    private static final int FNV_PRIME = 0x01000193;
+
+    private final boolean ignoreCase;
+    private final String[] names;
+    private final byte[] packed;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] byteSlots;
+    private final int[] charSlots;
+    private final int[] byteHashes;
+    private final int[] charHashes;
+    private final int mask;
+
+    private BlockedNameTable(String[] names, boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+        this.names = names;
+        this.offsets = new int[names.length];
+        this.lengths = new int[names.length];
+        this.byteHashes = new int[names.length];
+        this.charHashes = new int[names.length];
+
+        // Pack the UTF-8 encoded names back to back
+        byte[][] encoded = new byte[names.length][];
+        int total = 0;
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            total += encoded[i].length;
+        }
+        this.packed = new byte[total];
+        int offset = 0;
+        for (int i = 0; i < names.length; i++) {
+            System.arraycopy(encoded[i], 0, packed, offset, encoded[i].length);
+            offsets[i] = offset;
+            lengths[i] = encoded[i].length;
+            byteHashes[i] = hash(packed, offset, encoded[i].length, ignoreCase);
+            charHashes[i] = hash(names[i], 0, names[i].length(), ignoreCase);
+            offset += encoded[i].length;
+        }
+
+        // Keep the load factor at or below one half
+        int capacity = 4;
+        while (capacity < names.length * 2) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.byteSlots = new int[capacity];
+        this.charSlots = new int[capacity];
+        for (int i = 0; i < names.length; i++) {
+            insert(byteSlots, byteHashes[i], i);
+            insert(charSlots, charHashes[i], i);
+        }
+    }
+
+    /**
+     * Build a table from a collection of cookie names.
+     * Names that are equal under the table's case rule are stored once.
+     *
+     * @param cookieNames The names to block
+     * @param ignoreCase  true to match names regardless of ASCII letter case
+     * @return A new table
+     */
+    public static BlockedNameTable build(Collection<String> cookieNames, boolean ignoreCase) {
+        String[] unique = new String[cookieNames.size()];
+        int count = 0;
+        for (String name : cookieNames) {
+            boolean duplicate = false;
+            for (int i = 0; i < count && !duplicate; i++) {
+                duplicate = unique[i].length() == name.length() && regionEquals(unique[i], name, 0, ignoreCase);
+            }
+            if (!duplicate) {
+                unique[count++] = name;
+            }
+        }
+        String[] names = new String[count];
+        System.arraycopy(unique, 0, names, 0, count);
+        return new BlockedNameTable(names, ignoreCase);
+    }
+
+    /**
+     * @return A shared table that blocks nothing
+     */
+    public static BlockedNameTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return The number of names in the table
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * @return true if names are matched regardless of ASCII letter case
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Get a name by its index.
+     *
+     * @param index A value returned by one of the {@code indexOf} methods
+     * @return The name as it was added
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Check whether a cookie name is blocked.
+     *
+     * @param name The cookie name
+     * @return true if the name is in the table
+     */
+    public boolean contains(CharSequence name) {
+        return name != null && indexOf(name, 0, name.length()) >= 0;
+    }
+
+    /**
+     * Check whether a slice of characters is a blocked name.
+     *
+     * @param text   The characters holding the name
+     * @param offset Start of the name
+     * @param length Length of the name
+     * @return true if the name is in the table
+     */
+    public boolean contains(CharSequence text, int offset, int length) {
+        return indexOf(text, offset, length) >= 0;
+    }
+
+    /**
+     * Check whether a slice of bytes is a blocked name.
+     *
+     * @param buffer The bytes holding the UTF-8 encoded name
+     * @param offset Start of the name
+     * @param length Length of the name in bytes
+     * @return true if the name is in the table
+     */
+    public boolean contains(byte[] buffer, int offset, int length) {
+        return indexOf(buffer, offset, length) >= 0;
+    }
+
+    /**
+     * Look up a slice of characters.
+     *
+     * @return The index of the matching name, or -1 if it is not blocked
+     */
+    public int indexOf(CharSequence text, int offset, int length) {
+        if (names.length == 0) {
+            return -1;
+        }
+        int hash = hash(text, offset, length, ignoreCase);
+        int slot = hash & mask;
+        while (true) {
+            int entry = charSlots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            if (charHashes[index] == hash && names[index].length() == length
+                    && regionEquals(names[index], text, offset, ignoreCase)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Look up a slice of bytes.
+     *
+     * @return The index of the matching name, or -1 if it is not blocked
+     */
+    public int indexOf(byte[] buffer, int offset, int length) {
+        if (names.length == 0) {
+            return -1;
+        }
+        int hash = hash(buffer, offset, length, ignoreCase);
+        int slot = hash & mask;
+        while (true) {
+            int entry = byteSlots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int index = entry - 1;
+            if (byteHashes[index] == hash && lengths[index] == length
+                    && regionEquals(packed, offsets[index], buffer, offset, length, ignoreCase)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Check whether any cookie in a {@code Cookie} header value is blocked.
+     * Parses {@code name=value; name=value} pairs in place.
+     *
+     * @param headerValue The header value
+     * @return true if at least one cookie name is in the table
+     */
+    public boolean containsAnyInHeader(CharSequence headerValue) {
+        if (names.length == 0 || headerValue == null) {
+            return false;
+        }
+        int length = headerValue.length();
+        int position = 0;
+        while (position < length) {
+            // Skip separators and whitespace before the name
+            char c = headerValue.charAt(position);
+            if (c == ';' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+            int nameStart = position;
+            while (position < length && headerValue.charAt(position) != '=' && headerValue.charAt(position) != ';') {
+                position++;
+            }
+            int nameEnd = position;
+            while (nameEnd > nameStart && isWhitespace(headerValue.charAt(nameEnd - 1))) {
+                nameEnd--;
+            }
+            if (indexOf(headerValue, nameStart, nameEnd - nameStart) >= 0) {
+                return true;
+            }
+            // Skip the value
+            while (position < length && headerValue.charAt(position) != ';') {
+                position++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the blocked names in a {@code Cookie} header value held as raw bytes.
+     * Parses {@code name=value; name=value} pairs in place.
+     *
+     * @param buffer The bytes holding the header value
+     * @param offset Start of the header value
+     * @param end    End of the header value (exclusive)
+     * @param out    Receives the matching names, as they were added to the table
+     * @return The number of names added to {@code out}
+     */
+    public int collectBlockedInHeader(byte[] buffer, int offset, int end, Collection<String> out) {
+        if (names.length == 0) {
+            return 0;
+        }
+        int found = 0;
+        int position = offset;
+        while (position < end) {
+            // Skip separators and whitespace before the name
+            byte b = buffer[position];
+            if (b == ';' || b == ' ' || b == '\t') {
+                position++;
+                continue;
+            }
+            int nameStart = position;
+            while (position < end && buffer[position] != '=' && buffer[position] != ';') {
+                position++;
+            }
+            int nameEnd = position;
+            while (nameEnd > nameStart && (buffer[nameEnd - 1] == ' ' || buffer[nameEnd - 1] == '\t')) {
+                nameEnd--;
+            }
+            int index = indexOf(buffer, nameStart, nameEnd - nameStart);
+            if (index >= 0) {
+                out.add(names[index]);
+                found++;
+            }
+            // Skip the value
+            while (position < end && buffer[position] != ';') {
+                position++;
+            }
+        }
+        return found;
+    }
+
+    private void insert(int[] slots, int hash, int index) {
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static int fold(int c, boolean ignoreCase) {
+        return ignoreCase && c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private static int hash(byte[] buffer, int offset, int length, boolean ignoreCase) {
+        int hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ fold(buffer[i] & 0xFF, ignoreCase)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static int hash(CharSequence text, int offset, int length, boolean ignoreCase) {
+        int hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ fold(text.charAt(i), ignoreCase)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static boolean regionEquals(String name, CharSequence text, int offset, boolean ignoreCase) {
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(name.charAt(i), ignoreCase) != fold(text.charAt(offset + i), ignoreCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length, boolean ignoreCase) {
+        for (int i = 0; i < length; i++) {
+            if (fold(a[aOffset + i] & 0xFF, ignoreCase) != fold(b[bOffset + i] & 0xFF, ignoreCase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
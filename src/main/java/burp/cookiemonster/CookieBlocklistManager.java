@@ -1,22 +1,131 @@
 package burp.cookiemonster;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Thread-safe manager for the cookie blocklist and domain filtering settings.
  * Maintains a set of cookie names that should be removed from requests,
- * along with domain filtering configuration.
+ * along with domain filtering configuration, optional path-prefix
+ * conditions that limit a blocked cookie to parts of a site, and overrides
+ * that replace or add cookie values, optionally limited to a domain.
+ * Every change recompiles an immutable {@link FilterSnapshot} that the request
+ * path reads without locking. Edits are made while holding the manager's monitor,
+ * so a caller that synchronizes on it can read, merge and replace the whole
+ * configuration without losing a concurrent edit.
  */
 public class CookieBlocklistManager {
     private final Set<String> blockedCookies;
     private final Set<String> customDomains;
+    private final Map<String, Set<String>> pathConditions;
+    private final Map<String, CookieOverride> overrides;
     private volatile DomainFilterMode filterMode;
+    private volatile boolean ignoreCase;
+    private volatile FilterSnapshot snapshot;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     public CookieBlocklistManager() {
         this.blockedCookies = new CopyOnWriteArraySet<>();
         this.customDomains = new CopyOnWriteArraySet<>();
+        this.pathConditions = new ConcurrentHashMap<>();
+        this.overrides = new ConcurrentHashMap<>();
         this.filterMode = DomainFilterMode.ALL_DOMAINS;
+        rebuildSnapshot();
+    }
+
+    /**
+     * Get the compiled filter configuration.
+     *
+     * @return The current snapshot; never null
+     */
+    public FilterSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Recompile the snapshot from the current settings.
+     */
+    private synchronized void rebuildSnapshot() {
+        snapshot = FilterSnapshot.compile(blockedCookies, ignoreCase, pathConditions, getOverrides(), filterMode,
+                customDomains);
+    }
+
+    /**
+     * Recompile the snapshot and notify change listeners.
+     */
+    private void configChanged() {
+        rebuildSnapshot();
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Register a listener that runs after every configuration change, on the thread that made it.
+     *
+     * @param listener The listener to add
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Replace the whole configuration at once. Requests see either the old or the
+     * new configuration, never a mix of the two.
+     *
+     * @param cookies    The blocked cookie names
+     * @param ignoreCase true to match cookie names regardless of ASCII letter case
+     * @param conditions Path-prefix conditions per cookie name
+     * @param overrides  The cookie overrides
+     * @param mode       The domain filter mode
+     * @param domains    The custom domains
+     */
+    public void replaceConfig(Collection<String> cookies, boolean ignoreCase,
+                              Map<String, ? extends Collection<String>> conditions,
+                              Collection<CookieOverride> overrides, DomainFilterMode mode,
+                              Collection<String> domains) {
+        synchronized (this) {
+            blockedCookies.retainAll(cookies);
+            for (String cookie : cookies) {
+                if (cookie != null && !cookie.trim().isEmpty()) {
+                    blockedCookies.add(cookie.trim());
+                }
+            }
+            pathConditions.clear();
+            for (Map.Entry<String, ? extends Collection<String>> entry : conditions.entrySet()) {
+                Set<String> normalized = normalizeConditions(entry.getValue());
+                if (!normalized.isEmpty()) {
+                    pathConditions.put(entry.getKey().trim(), normalized);
+                }
+            }
+            this.overrides.clear();
+            for (CookieOverride override : overrides) {
+                if (CookieOverride.isValid(override.getName(), override.getValue())
+                        && CookieOverride.isValidScope(override.getType(), override.getDomain())) {
+                    this.overrides.put(override.getName(), override);
+                }
+            }
+            customDomains.clear();
+            for (String domain : domains) {
+                if (domain != null && !domain.trim().isEmpty()) {
+                    customDomains.add(domain.trim().toLowerCase());
+                }
+            }
+            this.ignoreCase = ignoreCase;
+            if (mode != null) {
+                this.filterMode = mode;
+            }
+        }
+        configChanged();
     }
 
     /**
@@ -29,7 +138,14 @@ public class CookieBlocklistManager {
         if (cookieName == null || cookieName.trim().isEmpty()) {
             return false;
         }
-        return blockedCookies.add(cookieName.trim());
+        boolean added;
+        synchronized (this) {
+            added = blockedCookies.add(cookieName.trim());
+        }
+        if (added) {
+            configChanged();
+        }
+        return added;
     }
 
     /**
@@ -39,17 +155,28 @@ public class CookieBlocklistManager {
      * @return true if the cookie was removed, false if it wasn't in the blocklist
      */
     public boolean removeCookie(String cookieName) {
-        return blockedCookies.remove(cookieName);
+        boolean removed;
+        synchronized (this) {
+            removed = blockedCookies.remove(cookieName);
+            if (removed) {
+                pathConditions.remove(cookieName);
+            }
+        }
+        if (removed) {
+            configChanged();
+        }
+        return removed;
     }
 
     /**
      * Check if a cookie name is in the blocklist.
+     * Honours the case-insensitive setting.
      *
      * @param cookieName The name of the cookie to check
      * @return true if the cookie is blocked, false otherwise
      */
     public boolean isBlocked(String cookieName) {
-        return blockedCookies.contains(cookieName);
+        return snapshot.getBlockedNames().contains(cookieName);
     }
 
     /**
@@ -65,7 +192,11 @@ public class CookieBlocklistManager {
      * Clear all blocked cookies.
      */
     public void clear() {
-        blockedCookies.clear();
+        synchronized (this) {
+            blockedCookies.clear();
+            pathConditions.clear();
+        }
+        configChanged();
     }
 
     /**
@@ -77,6 +208,168 @@ public class CookieBlocklistManager {
         return blockedCookies.size();
     }
 
+    /**
+     * Check whether cookie names are matched regardless of letter case.
+     *
+     * @return true if matching ignores ASCII letter case
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Set whether cookie names are matched regardless of letter case.
+     *
+     * @param ignoreCase true to ignore ASCII letter case when matching
+     */
+    public void setIgnoreCase(boolean ignoreCase) {
+        synchronized (this) {
+            this.ignoreCase = ignoreCase;
+        }
+        configChanged();
+    }
+
+    // Path condition methods
+
+    /**
+     * Limit a blocked cookie to requests whose path starts with one of the given prefixes.
+     * Each condition is a path prefix ("/api/") or a domain and path prefix
+     * ("example.com/api/"); prefixes are compared segment by segment.
+     *
+     * @param cookieName The blocked cookie name
+     * @param conditions The conditions; empty to remove the cookie everywhere again
+     */
+    public void setPathConditions(String cookieName, Collection<String> conditions) {
+        if (cookieName == null || cookieName.trim().isEmpty()) {
+            return;
+        }
+        Set<String> normalized = normalizeConditions(conditions);
+        synchronized (this) {
+            if (normalized.isEmpty()) {
+                if (pathConditions.remove(cookieName.trim()) == null) {
+                    return;
+                }
+            } else {
+                pathConditions.put(cookieName.trim(), normalized);
+            }
+        }
+        configChanged();
+    }
+
+    /**
+     * Get the path conditions of a blocked cookie.
+     *
+     * @param cookieName The blocked cookie name
+     * @return The conditions in the order they were entered; empty if the cookie is removed everywhere
+     */
+    public Set<String> getPathConditions(String cookieName) {
+        Set<String> conditions = pathConditions.get(cookieName);
+        return conditions == null ? Collections.emptySet() : conditions;
+    }
+
+    /**
+     * Get the path conditions of every blocked cookie that has any.
+     *
+     * @return A map from cookie name to its conditions
+     */
+    public Map<String, Set<String>> getAllPathConditions() {
+        return Map.copyOf(pathConditions);
+    }
+
+    /**
+     * Trim conditions, drop blank ones and lower-case their domain part.
+     */
+    private static Set<String> normalizeConditions(Collection<String> conditions) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (conditions != null) {
+            for (String condition : conditions) {
+                String[] parsed = PathRuleTable.parseCondition(condition);
+                if (parsed != null) {
+                    normalized.add(parsed[0] == null ? parsed[1] : parsed[0] + parsed[1]);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(normalized);
+    }
+
+    // Override methods
+
+    /**
+     * Add or update an override for a cookie.
+     * Overrides take precedence over the blocklist: an overridden cookie is never removed.
+     *
+     * @param cookieName The cookie name
+     * @param value      The value to send
+     * @param type       Whether to only replace an existing cookie or also add a missing one
+     * @param domain     The domain the override is limited to, including subdomains ("example.com");
+     *                   null or blank for any host, which only replacements allow
+     * @return false if the name or value cannot be written into a Cookie header, the domain is
+     * malformed, or an addition has no domain
+     */
+    public boolean putOverride(String cookieName, String value, OverrideType type, String domain) {
+        if (cookieName == null || value == null || type == null) {
+            return false;
+        }
+        String name = cookieName.trim();
+        String trimmedValue = value.trim();
+        if (!CookieOverride.isValid(name, trimmedValue)) {
+            return false;
+        }
+        String scope = null;
+        if (domain != null && !domain.trim().isEmpty()) {
+            scope = CookieOverride.parseDomain(domain);
+            if (scope == null) {
+                return false;
+            }
+        }
+        if (!CookieOverride.isValidScope(type, scope)) {
+            return false;
+        }
+        synchronized (this) {
+            overrides.put(name, new CookieOverride(name, trimmedValue, type, scope));
+        }
+        configChanged();
+        return true;
+    }
+
+    /**
+     * Remove the override for a cookie.
+     *
+     * @param cookieName The cookie name
+     * @return true if the override was removed, false if there was none
+     */
+    public boolean removeOverride(String cookieName) {
+        boolean removed;
+        synchronized (this) {
+            removed = overrides.remove(cookieName) != null;
+        }
+        if (removed) {
+            configChanged();
+        }
+        return removed;
+    }
+
+    /**
+     * Get all overrides.
+     *
+     * @return The overrides, sorted by cookie name
+     */
+    public List<CookieOverride> getOverrides() {
+        List<CookieOverride> sorted = new ArrayList<>(overrides.values());
+        sorted.sort(Comparator.comparing(CookieOverride::getName));
+        return sorted;
+    }
+
+    /**
+     * Clear all overrides.
+     */
+    public void clearOverrides() {
+        synchronized (this) {
+            overrides.clear();
+        }
+        configChanged();
+    }
+
     // Domain filtering methods
 
     /**
@@ -95,7 +388,10 @@ public class CookieBlocklistManager {
      */
     public void setFilterMode(DomainFilterMode mode) {
         if (mode != null) {
-            this.filterMode = mode;
+            synchronized (this) {
+                this.filterMode = mode;
+            }
+            configChanged();
         }
     }
 
@@ -109,7 +405,14 @@ public class CookieBlocklistManager {
         if (domain == null || domain.trim().isEmpty()) {
             return false;
         }
-        return customDomains.add(domain.trim().toLowerCase());
+        boolean added;
+        synchronized (this) {
+            added = customDomains.add(domain.trim().toLowerCase());
+        }
+        if (added) {
+            configChanged();
+        }
+        return added;
     }
 
     /**
@@ -119,7 +422,14 @@ public class CookieBlocklistManager {
      * @return true if the domain was removed, false if it wasn't in the list
      */
     public boolean removeCustomDomain(String domain) {
-        return customDomains.remove(domain.toLowerCase());
+        boolean removed;
+        synchronized (this) {
+            removed = customDomains.remove(domain.toLowerCase());
+        }
+        if (removed) {
+            configChanged();
+        }
+        return removed;
     }
 
     /**
@@ -145,7 +455,10 @@ public class CookieBlocklistManager {
      * Clear all custom domains.
      */
     public void clearCustomDomains() {
-        customDomains.clear();
+        synchronized (this) {
+            customDomains.clear();
+        }
+        configChanged();
     }
 
     /**
@@ -165,24 +478,6 @@ public class CookieBlocklistManager {
      * @return true if the host matches a custom domain, false otherwise
      */
     public boolean matchesCustomDomain(String host) {
-        if (host == null || host.isEmpty()) {
-            return false;
-        }
-
-        String lowerHost = host.toLowerCase();
-
-        // Check for exact match first
-        if (customDomains.contains(lowerHost)) {
-            return true;
-        }
-
-        // Check if host ends with any custom domain (subdomain matching)
-        for (String domain : customDomains) {
-            if (lowerHost.equals(domain) || lowerHost.endsWith("." + domain)) {
-                return true;
-            }
-        }
-
-        return false;
+        return snapshot.matchesCustomDomain(host);
     }
 }
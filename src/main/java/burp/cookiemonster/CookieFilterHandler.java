@@ -6,7 +6,8 @@ import burp.api.montoya.http.handler.HttpRequestToBeSent;
 import burp.api.montoya.http.handler.HttpResponseReceived;
 import burp.api.montoya.http.handler.RequestToBeSentAction;
 import burp.api.montoya.http.handler.ResponseReceivedAction;
-import burp.api.montoya.http.message.params.HttpParameter;
+import burp.api.montoya.http.message.Cookie;
+import burp.api.montoya.http.message.HttpHeader;
 import burp.api.montoya.http.message.params.HttpParameterType;
 import burp.api.montoya.http.message.params.ParsedHttpParameter;
 import burp.api.montoya.http.message.requests.HttpRequest;
@@ -17,91 +18,373 @@ import java.util.List;
 
 /**
  * HTTP handler that intercepts requests and removes blocked cookies based on domain filtering rules.
+ * Cookie overrides are applied in the same pass, so the Cookie header is rewritten at most once.
  */
 public class CookieFilterHandler implements HttpHandler {
+    private static final String COOKIE_HEADER = "Cookie";
+
     private final CookieBlocklistManager blocklistManager;
+    private final DecisionLog decisionLog;
+    private final TrafficLearner trafficLearner;
+    private final LatencyExperiment latencyExperiment;
     private final MontoyaApi api;
     private final Logging logging;
 
-    public CookieFilterHandler(CookieBlocklistManager blocklistManager, MontoyaApi api) {
+    public CookieFilterHandler(CookieBlocklistManager blocklistManager, DecisionLog decisionLog,
+                               TrafficLearner trafficLearner, LatencyExperiment latencyExperiment, MontoyaApi api) {
         this.blocklistManager = blocklistManager;
+        this.decisionLog = decisionLog;
+        this.trafficLearner = trafficLearner;
+        this.latencyExperiment = latencyExperiment;
         this.api = api;
         this.logging = api.logging();
     }
 
     @Override
     public RequestToBeSentAction handleHttpRequestToBeSent(HttpRequestToBeSent requestToBeSent) {
+        long startNanos = System.nanoTime();
         try {
-            // Get all cookie parameters from the request
-            List<ParsedHttpParameter> cookieParameters = requestToBeSent.parameters(HttpParameterType.COOKIE);
+            FilterSnapshot config = blocklistManager.snapshot();
+            BlockedNameTable blockedNames = config.getBlockedNames();
 
-            // If there are no cookies or no blocked cookies, return original request
-            if (cookieParameters.isEmpty() || blocklistManager.size() == 0) {
-                return RequestToBeSentAction.continueWith(requestToBeSent);
+            // Scan the Cookie header(s) in place: no cookie objects are created unless something matches
+            BlockedNameTable overrideNames = config.getOverrideNames();
+            boolean hasCookies = false;
+            boolean anyMatch = false;
+            boolean experimentRequest = false;
+            List<HttpHeader> headers = requestToBeSent.headers();
+            for (int i = 0; i < headers.size(); i++) {
+                HttpHeader header = headers.get(i);
+                String name = header.name();
+                if (name.equalsIgnoreCase(COOKIE_HEADER)) {
+                    hasCookies = true;
+                    if (!anyMatch) {
+                        String value = header.value();
+                        anyMatch = blockedNames.containsAnyInHeader(value) || overrideNames.containsAnyInHeader(value);
+                    }
+                } else if (name.equalsIgnoreCase(LatencyExperiment.MARKER_HEADER)
+                        && latencyExperiment.isOwnMarker(header.value())) {
+                    experimentRequest = true;
+                }
             }
 
-            // Check if this request should be processed based on domain filtering mode
-            if (!shouldProcessRequest(requestToBeSent)) {
-                return RequestToBeSentAction.continueWith(requestToBeSent);
+            // Experiment variants are already shaped as intended: only drop the marker
+            if (experimentRequest) {
+                return RequestToBeSentAction.continueWith(
+                        requestToBeSent.withRemovedHeader(LatencyExperiment.MARKER_HEADER));
             }
 
-            // Find cookies that should be removed
-            List<HttpParameter> cookiesToRemove = new ArrayList<>();
-            for (ParsedHttpParameter cookie : cookieParameters) {
-                if (blocklistManager.isBlocked(cookie.name())) {
-                    cookiesToRemove.add(cookie);
-                    logging.logToOutput("Cookie Monster: Removing cookie '" + cookie.name() +
-                                      "' from request to " + requestToBeSent.url());
-                }
+            // Feed the learning mode before any filtering decision
+            if (trafficLearner.isEnabled()) {
+                observeRequestCookies(requestToBeSent);
+            }
+
+            // If there are no cookies or no rules that apply, return original request
+            if (!hasCookies && !config.hasAdditions()) {
+                return skip(requestToBeSent, DecisionOutcome.NO_COOKIES, startNanos);
+            }
+            if (blockedNames.size() == 0 && overrideNames.size() == 0) {
+                return skip(requestToBeSent, DecisionOutcome.EMPTY_BLOCKLIST, startNanos);
+            }
+
+            // Check if this request should be processed based on domain filtering mode
+            DecisionOutcome domainOutcome = checkDomainFilter(requestToBeSent, config);
+            if (domainOutcome != null) {
+                return skip(requestToBeSent, domainOutcome, startNanos);
             }
 
-            // If no cookies need to be removed, return original request
-            if (cookiesToRemove.isEmpty()) {
-                return RequestToBeSentAction.continueWith(requestToBeSent);
+            if (!anyMatch && !config.hasAdditions()) {
+                return skip(requestToBeSent, DecisionOutcome.NO_MATCH, startNanos);
             }
 
-            // Create a modified request with the blocked cookies removed
-            HttpRequest modifiedRequest = requestToBeSent.withRemovedParameters(cookiesToRemove);
-            return RequestToBeSentAction.continueWith(modifiedRequest);
+            return rewriteCookies(requestToBeSent, headers, config, startNanos);
 
         } catch (Exception e) {
             logging.logToError("Cookie Monster error: " + e.getMessage());
             // On error, return the original request to avoid breaking functionality
-            return RequestToBeSentAction.continueWith(requestToBeSent);
+            return skip(requestToBeSent, DecisionOutcome.ERROR, startNanos);
+        }
+    }
+
+    /**
+     * Apply removals, replacements and additions in a single pass over the Cookie header(s)
+     * and write the result back as one header.
+     * Several Cookie headers (as sent over HTTP/2) are merged into one.
+     *
+     * @param request    The request to modify
+     * @param headers    The request headers
+     * @param config     The configuration snapshot for this request
+     * @param startNanos When handling of the request started
+     * @return The action for the modified request, or for the original one if nothing changed
+     */
+    private RequestToBeSentAction rewriteCookies(HttpRequestToBeSent request, List<HttpHeader> headers,
+                                                 FilterSnapshot config, long startNanos) {
+        BlockedNameTable blockedNames = config.getBlockedNames();
+        BlockedNameTable overrideNames = config.getOverrideNames();
+        PathRuleTable pathRules = config.getPathRules();
+        boolean[] pathMatches = null;
+        String host = null;
+        boolean[] overrideSeen = new boolean[overrideNames.size()];
+        List<HttpHeader> cookieHeaders = new ArrayList<>(1);
+        StringBuilder rewritten = new StringBuilder();
+        StringBuilder changedNames = new StringBuilder();
+        // While the experiment runs, also build the header with overrides applied but blocked cookies kept
+        StringBuilder unfiltered = latencyExperiment.isEnabled() ? new StringBuilder() : null;
+        StringBuilder removedNames = unfiltered == null ? null : new StringBuilder();
+        boolean overrodeAny = false;
+        boolean removedAny = false;
+        boolean changed = false;
+        boolean pathNotMatched = false;
+
+        for (int i = 0; i < headers.size(); i++) {
+            HttpHeader header = headers.get(i);
+            if (!header.name().equalsIgnoreCase(COOKIE_HEADER)) {
+                continue;
+            }
+            cookieHeaders.add(header);
+            String value = header.value();
+            int length = value.length();
+            int position = 0;
+            while (position < length) {
+                // Skip separators and whitespace before the name
+                char c = value.charAt(position);
+                if (c == ';' || c == ' ' || c == '\t') {
+                    position++;
+                    continue;
+                }
+                int pairStart = position;
+                while (position < length && value.charAt(position) != '=' && value.charAt(position) != ';') {
+                    position++;
+                }
+                int nameEnd = position;
+                while (nameEnd > pairStart && isWhitespace(value.charAt(nameEnd - 1))) {
+                    nameEnd--;
+                }
+                while (position < length && value.charAt(position) != ';') {
+                    position++;
+                }
+                int pairEnd = position;
+                while (pairEnd > pairStart && isWhitespace(value.charAt(pairEnd - 1))) {
+                    pairEnd--;
+                }
+                int nameLength = nameEnd - pairStart;
+
+                // Overrides win over the blocklist on the hosts they apply to
+                int overrideIndex = overrideNames.indexOf(value, pairStart, nameLength);
+                CookieOverride override = overrideIndex < 0 ? null : config.getOverride(overrideIndex);
+                if (override != null && override.getDomain() != null && host == null) {
+                    host = request.httpService().host();
+                }
+                if (override != null && override.appliesTo(host)) {
+                    if (overrideSeen[overrideIndex]) {
+                        // Drop repeated copies of an overridden cookie
+                        changed = true;
+                        overrodeAny = true;
+                        continue;
+                    }
+                    overrideSeen[overrideIndex] = true;
+                    String pair = override.getPair();
+                    appendPair(rewritten, pair, 0, pair.length());
+                    appendPair(unfiltered, pair, 0, pair.length());
+                    boolean same = pairEnd - pairStart == pair.length()
+                            && value.regionMatches(pairStart, pair, 0, pair.length());
+                    if (!same) {
+                        changed = true;
+                        overrodeAny = true;
+                        appendName(changedNames, override.getName()).append(" (replaced)");
+                    }
+                    continue;
+                }
+
+                int blockedIndex = blockedNames.indexOf(value, pairStart, nameLength);
+                if (blockedIndex >= 0) {
+                    boolean allowed = true;
+                    if (pathRules.isConditional(blockedIndex)) {
+                        // Resolve the path conditions once, for the first conditional cookie
+                        if (pathMatches == null) {
+                            pathMatches = pathRules.matchingIds(request.httpService().host(), request.path());
+                        }
+                        allowed = pathMatches[blockedIndex];
+                        pathNotMatched |= !allowed;
+                    }
+                    if (allowed) {
+                        String name = value.substring(pairStart, nameEnd);
+                        changed = true;
+                        removedAny = true;
+                        appendName(changedNames, name);
+                        appendName(removedNames, name);
+                        appendPair(unfiltered, value, pairStart, pairEnd);
+                        continue;
+                    }
+                }
+
+                appendPair(rewritten, value, pairStart, pairEnd);
+                appendPair(unfiltered, value, pairStart, pairEnd);
+            }
+        }
+
+        // Add forced cookies the request did not carry
+        if (config.hasAdditions()) {
+            for (int i = 0; i < overrideSeen.length; i++) {
+                CookieOverride override = config.getOverride(i);
+                if (overrideSeen[i] || override.getType() != OverrideType.ADD) {
+                    continue;
+                }
+                // Additions always carry a domain
+                if (host == null) {
+                    host = request.httpService().host();
+                }
+                if (override.appliesTo(host)) {
+                    String pair = override.getPair();
+                    appendPair(rewritten, pair, 0, pair.length());
+                    appendPair(unfiltered, pair, 0, pair.length());
+                    changed = true;
+                    overrodeAny = true;
+                    appendName(changedNames, override.getName()).append(" (added)");
+                }
+            }
+        }
+
+        if (!changed) {
+            DecisionOutcome outcome = pathNotMatched ? DecisionOutcome.PATH_NOT_MATCHED
+                    : cookieHeaders.isEmpty() ? DecisionOutcome.NO_COOKIES : DecisionOutcome.NO_MATCH;
+            return skip(request, outcome, startNanos);
+        }
+
+        HttpRequest modifiedRequest = withCookieHeader(request, cookieHeaders, rewritten.toString());
+        record(request, changedNames.toString(), removedAny ? DecisionOutcome.REMOVED : DecisionOutcome.OVERRIDDEN,
+                startNanos);
+
+        // Compare against the request as it would be sent if only the overrides applied
+        if (removedAny && unfiltered != null) {
+            HttpRequest original = overrodeAny ? withCookieHeader(request, cookieHeaders, unfiltered.toString())
+                    : request;
+            latencyExperiment.offer(original, modifiedRequest, request.httpService().host(),
+                    removedNames.toString());
+        }
+        return RequestToBeSentAction.continueWith(modifiedRequest);
+    }
+
+    /**
+     * Write a cookie string back as a single Cookie header, replacing the existing ones.
+     */
+    private static HttpRequest withCookieHeader(HttpRequest request, List<HttpHeader> cookieHeaders,
+                                                String cookieValue) {
+        if (cookieHeaders.size() == 1 && !cookieValue.isEmpty()) {
+            return request.withUpdatedHeader(cookieHeaders.get(0).name(), cookieValue);
+        }
+        HttpRequest result = cookieHeaders.isEmpty() ? request : request.withRemovedHeaders(cookieHeaders);
+        if (!cookieValue.isEmpty()) {
+            result = result.withAddedHeader(COOKIE_HEADER, cookieValue);
+        }
+        return result;
+    }
+
+    private static void appendPair(StringBuilder builder, CharSequence text, int start, int end) {
+        if (builder == null) {
+            return;
+        }
+        if (builder.length() > 0) {
+            builder.append("; ");
+        }
+        builder.append(text, start, end);
+    }
+
+    private static StringBuilder appendName(StringBuilder builder, String name) {
+        if (builder == null) {
+            return null;
         }
+        if (builder.length() > 0) {
+            builder.append(", ");
+        }
+        return builder.append(name);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
     }
 
     /**
-     * Determine if the request should be processed based on the domain filtering mode.
+     * Check the request against the domain filtering mode.
      *
      * @param request The request to check
-     * @return true if the request should be processed, false otherwise
+     * @param config  The configuration snapshot for this request
+     * @return null if the request should be processed, otherwise the reason it is skipped
      */
-    private boolean shouldProcessRequest(HttpRequestToBeSent request) {
-        DomainFilterMode mode = blocklistManager.getFilterMode();
+    private DecisionOutcome checkDomainFilter(HttpRequestToBeSent request, FilterSnapshot config) {
+        DomainFilterMode mode = config.getFilterMode();
 
         switch (mode) {
             case ALL_DOMAINS:
                 // Process all requests regardless of domain
-                return true;
+                return null;
 
             case IN_SCOPE_ONLY:
                 // Only process requests that are in Burp's scope
-                return request.isInScope();
+                return request.isInScope() ? null : DecisionOutcome.OUT_OF_SCOPE;
 
             case CUSTOM_DOMAINS:
                 // Only process requests to domains in the custom list
                 String host = request.httpService().host();
-                return blocklistManager.matchesCustomDomain(host);
+                return config.matchesCustomDomain(host) ? null : DecisionOutcome.DOMAIN_NOT_LISTED;
 
             default:
                 // Default to processing all requests
-                return true;
+                return null;
+        }
+    }
+
+    /**
+     * Feed every cookie in the request to the traffic learner.
+     */
+    private void observeRequestCookies(HttpRequestToBeSent request) {
+        List<ParsedHttpParameter> cookieParameters = request.parameters(HttpParameterType.COOKIE);
+        if (!cookieParameters.isEmpty()) {
+            String host = request.httpService().host();
+            for (ParsedHttpParameter cookie : cookieParameters) {
+                trafficLearner.observe(host, cookie.name(), cookie.value().length());
+            }
+        }
+    }
+
+    /**
+     * Record a decision for a request that is forwarded unchanged.
+     */
+    private RequestToBeSentAction skip(HttpRequestToBeSent request, DecisionOutcome outcome, long startNanos) {
+        record(request, "", outcome, startNanos);
+        return RequestToBeSentAction.continueWith(request);
+    }
+
+    /**
+     * Add a decision to the decision log. Failures here must never affect the request.
+     */
+    private void record(HttpRequestToBeSent request, String removedNames, DecisionOutcome outcome, long startNanos) {
+        try {
+            decisionLog.record(request.httpService().host(), request.toolSource().toolType(),
+                    removedNames, outcome, System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            logging.logToError("Cookie Monster: failed to record decision: " + e.getMessage());
         }
     }
 
     @Override
     public ResponseReceivedAction handleHttpResponseReceived(HttpResponseReceived responseReceived) {
+        // Learn cookies set by the server while learning mode is on
+        if (trafficLearner.isEnabled()) {
+            try {
+                List<Cookie> cookies = responseReceived.cookies();
+                if (!cookies.isEmpty()) {
+                    String host = responseReceived.initiatingRequest().httpService().host();
+                    for (Cookie cookie : cookies) {
+                        String value = cookie.value();
+                        trafficLearner.observe(host, cookie.name(), value == null ? 0 : value.length());
+                    }
+                }
+            } catch (Exception e) {
+                logging.logToError("Cookie Monster learning error: " + e.getMessage());
+            }
+        }
+
         // We don't need to modify responses, just pass them through
         return ResponseReceivedAction.continueWith(responseReceived);
     }
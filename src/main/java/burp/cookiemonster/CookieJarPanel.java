@@ -0,0 +1,86 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+
+/**
+ * Controls for purging blocked cookies from Burp's session-handling cookie jar.
+ */
+public class CookieJarPanel extends JPanel {
+    private final CookieJarPurger purger;
+    private final JSpinner intervalSpinner;
+    private final JLabel scheduleLabel;
+    private final JLabel statusLabel;
+
+    public CookieJarPanel(CookieJarPurger purger) {
+        this.purger = purger;
+        this.intervalSpinner = new JSpinner(new SpinnerNumberModel(purger.getIntervalMinutes(), 0, 1440, 1));
+        this.scheduleLabel = new JLabel();
+        this.statusLabel = new JLabel("No purge has run yet");
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("Cookie Jar Purge"));
+
+        JPanel contentPanel = new JPanel();
+        contentPanel.setLayout(new BoxLayout(contentPanel, BoxLayout.Y_AXIS));
+        contentPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        JLabel descLabel = new JLabel("Expire blocked cookies in Burp's session-handling cookie jar " +
+                "so session rules stop re-adding them (honours the domain filter)");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        descLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        contentPanel.add(descLabel);
+        contentPanel.add(Box.createVerticalStrut(10));
+
+        // Schedule controls
+        JPanel schedulePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        schedulePanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        schedulePanel.add(new JLabel("Purge every"));
+        schedulePanel.add(intervalSpinner);
+        schedulePanel.add(new JLabel("minutes (0 = off)"));
+
+        JButton applyButton = new JButton("Apply");
+        applyButton.addActionListener(e -> applyInterval());
+        schedulePanel.add(applyButton);
+
+        JButton purgeNowButton = new JButton("Purge Now");
+        purgeNowButton.addActionListener(e -> {
+            statusLabel.setText("Purging...");
+            purger.purgeNow();
+        });
+        schedulePanel.add(purgeNowButton);
+        contentPanel.add(schedulePanel);
+
+        // Status
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        statusPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        statusPanel.add(scheduleLabel);
+        contentPanel.add(statusPanel);
+
+        JPanel resultPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        resultPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        resultPanel.add(statusLabel);
+        contentPanel.add(resultPanel);
+
+        add(contentPanel, BorderLayout.NORTH);
+
+        purger.setStatusListener(status -> SwingUtilities.invokeLater(() -> statusLabel.setText(status)));
+        updateScheduleLabel();
+    }
+
+    private void applyInterval() {
+        int minutes = (Integer) intervalSpinner.getValue();
+        purger.setIntervalMinutes(minutes);
+        updateScheduleLabel();
+    }
+
+    private void updateScheduleLabel() {
+        int minutes = purger.getIntervalMinutes();
+        scheduleLabel.setText(minutes > 0
+                ? "Scheduled purge: every " + minutes + " minute(s)"
+                : "Scheduled purge: off");
+    }
+}
@@ -0,0 +1,217 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.Cookie;
+import burp.api.montoya.http.sessions.CookieJar;
+import burp.api.montoya.logging.Logging;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background task that expires blocked cookies in Burp's session-handling cookie jar,
+ * so session rules stop re-adding cookies that the filter strips from requests.
+ * Purges run on a single daemon thread, either on a schedule or on demand. Matching
+ * cookies are expired in fixed-size batches, each one a separate task, so other purge
+ * requests, schedule changes and unloading are handled between batches.
+ */
+public class CookieJarPurger {
+    private static final int BATCH_SIZE = 100;
+
+    private final CookieBlocklistManager blocklistManager;
+    private final MontoyaApi api;
+    private final Logging logging;
+    private final ScheduledExecutorService executor;
+    private volatile Consumer<String> statusListener;
+    private ScheduledFuture<?> scheduledPurge;
+    private int intervalMinutes;
+    // Only touched on the purge thread; a new purge makes the batches of an older one stop
+    private long currentPurge;
+
+    public CookieJarPurger(CookieBlocklistManager blocklistManager, MontoyaApi api) {
+        this.blocklistManager = blocklistManager;
+        this.api = api;
+        this.logging = api.logging();
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Cookie Monster jar purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set a listener that receives a summary after each purge. Called on the purge thread.
+     *
+     * @param statusListener The listener, or null to remove it
+     */
+    public void setStatusListener(Consumer<String> statusListener) {
+        this.statusListener = statusListener;
+    }
+
+    /**
+     * Get the interval between scheduled purges.
+     *
+     * @return The interval in minutes, or 0 if scheduled purging is off
+     */
+    public synchronized int getIntervalMinutes() {
+        return intervalMinutes;
+    }
+
+    /**
+     * Set the interval between scheduled purges, replacing any existing schedule.
+     *
+     * @param minutes The interval in minutes, or 0 to turn scheduled purging off
+     */
+    public synchronized void setIntervalMinutes(int minutes) {
+        if (scheduledPurge != null) {
+            scheduledPurge.cancel(false);
+            scheduledPurge = null;
+        }
+        intervalMinutes = Math.max(0, minutes);
+        if (intervalMinutes > 0) {
+            scheduledPurge = executor.scheduleWithFixedDelay(this::purge,
+                    intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Run a purge as soon as the purge thread is free.
+     */
+    public void purgeNow() {
+        executor.execute(this::purge);
+    }
+
+    /**
+     * Stop scheduled purges and release the purge thread.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Walk the cookie jar and expire every cookie that the current rules would block.
+     */
+    private void purge() {
+        long purgeId = ++currentPurge;
+        try {
+            // Use one configuration for the whole purge, even if the rules change meanwhile
+            FilterSnapshot config = blocklistManager.snapshot();
+            if (config.getBlockedNames().size() == 0) {
+                report("Nothing to purge: blocklist is empty");
+                return;
+            }
+
+            CookieJar cookieJar = api.http().cookieJar();
+            List<Cookie> cookies = cookieJar.cookies();
+            List<Cookie> toExpire = new ArrayList<>();
+            for (Cookie cookie : cookies) {
+                if (isPurgeable(cookie, config) && matchesDomainFilter(cookie.domain(), cookie.path(), config)) {
+                    toExpire.add(cookie);
+                }
+            }
+
+            expireBatch(purgeId, cookieJar, toExpire, 0, cookies.size());
+        } catch (Exception e) {
+            logging.logToError("Cookie Monster jar purge error: " + e.getMessage());
+            report("Last purge failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Expire one batch of cookies and queue the next one behind any other pending purge work.
+     *
+     * @param purgeId  The purge the batch belongs to; stale batches are dropped
+     * @param offset   Index of the first cookie in this batch
+     * @param jarSize  Number of cookies in the jar when the purge started, for the summary
+     */
+    private void expireBatch(long purgeId, CookieJar cookieJar, List<Cookie> toExpire, int offset, int jarSize) {
+        if (purgeId != currentPurge) {
+            return;
+        }
+        try {
+            ZonedDateTime expired = ZonedDateTime.now().minusYears(1);
+            int end = Math.min(toExpire.size(), offset + BATCH_SIZE);
+            for (int i = offset; i < end; i++) {
+                Cookie cookie = toExpire.get(i);
+                cookieJar.setCookie(cookie.name(), "", cookie.path(), cookie.domain(), expired);
+            }
+
+            if (end < toExpire.size()) {
+                report(String.format("Purging: %d of %d cookie(s) expired", end, toExpire.size()));
+                executor.execute(() -> expireBatch(purgeId, cookieJar, toExpire, end, jarSize));
+                return;
+            }
+
+            if (!toExpire.isEmpty()) {
+                logging.logToOutput("Cookie Monster: Purged " + toExpire.size() +
+                        " blocked cookie(s) from the cookie jar");
+            }
+            report(String.format("Last purge at %tT: %d of %d cookie(s) expired",
+                    System.currentTimeMillis(), toExpire.size(), jarSize));
+        } catch (RejectedExecutionException e) {
+            // The extension is unloading
+        } catch (Exception e) {
+            logging.logToError("Cookie Monster jar purge error: " + e.getMessage());
+            report("Last purge failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check whether a cookie jar entry is blocked wherever the browser would send it.
+     * A cookie with path conditions is only purged when its own path lies under one of them,
+     * because elsewhere on the site it is still needed.
+     */
+    private static boolean isPurgeable(Cookie cookie, FilterSnapshot config) {
+        String name = cookie.name();
+        int id = config.getBlockedNames().indexOf(name, 0, name.length());
+        if (id < 0) {
+            return false;
+        }
+        if (!config.getPathRules().isConditional(id)) {
+            return true;
+        }
+        String domain = cookie.domain();
+        String host = domain != null && domain.startsWith(".") ? domain.substring(1) : domain;
+        String path = cookie.path() == null || cookie.path().isEmpty() ? "/" : cookie.path();
+        return config.getPathRules().allows(id, host, path);
+    }
+
+    /**
+     * Check a cookie jar entry against the domain filtering mode.
+     */
+    private boolean matchesDomainFilter(String domain, String path, FilterSnapshot config) {
+        if (domain == null || domain.isEmpty()) {
+            return config.getFilterMode() == DomainFilterMode.ALL_DOMAINS;
+        }
+        String host = domain.startsWith(".") ? domain.substring(1) : domain;
+
+        switch (config.getFilterMode()) {
+            case ALL_DOMAINS:
+                return true;
+
+            case IN_SCOPE_ONLY:
+                String suffix = host + (path == null || path.isEmpty() ? "/" : path);
+                return api.scope().isInScope("https://" + suffix) || api.scope().isInScope("http://" + suffix);
+
+            case CUSTOM_DOMAINS:
+                return config.matchesCustomDomain(host);
+
+            default:
+                return true;
+        }
+    }
+
+    private void report(String status) {
+        Consumer<String> listener = statusListener;
+        if (listener != null) {
+            listener.accept(status);
+        }
+    }
+}
@@ -29,13 +29,37 @@ public class CookieMonster implements BurpExtension {
         // Create the cookie blocklist manager
         CookieBlocklistManager blocklistManager = new CookieBlocklistManager();
 
+        // Keep a bounded log of recent filter decisions for the UI
+        DecisionLog decisionLog = new DecisionLog();
+
+        // Learn cookies from traffic to suggest blocklist entries (off until enabled in the UI)
+        TrafficLearner trafficLearner = new TrafficLearner();
+
+        // Optional A/B comparison of response times with and without blocked cookies (off until enabled)
+        LatencyExperiment latencyExperiment = new LatencyExperiment(api);
+        api.extension().registerUnloadingHandler(latencyExperiment::shutdown);
+
         // Register HTTP handler to intercept and filter cookies
-        CookieFilterHandler filterHandler = new CookieFilterHandler(blocklistManager, api);
+        CookieFilterHandler filterHandler = new CookieFilterHandler(blocklistManager, decisionLog, trafficLearner,
+                latencyExperiment, api);
         api.http().registerHttpHandler(filterHandler);
         api.logging().logToOutput(EXTENSION_NAME + ": HTTP handler registered");
 
+        // Background purging of blocked cookies from Burp's cookie jar
+        CookieJarPurger cookieJarPurger = new CookieJarPurger(blocklistManager, api);
+        api.extension().registerUnloadingHandler(cookieJarPurger::shutdown);
+
+        // Optional configuration sharing with other Burp instances on this machine
+        SharedConfigStore sharedConfigStore = new SharedConfigStore(blocklistManager, api.logging());
+        api.extension().registerUnloadingHandler(sharedConfigStore::shutdown);
+
+        // Retroactive scan of captured traffic against the current rules
+        HistoryScanner historyScanner = new HistoryScanner(blocklistManager, api);
+        api.extension().registerUnloadingHandler(historyScanner::cancel);
+
         // Create and register the UI
-        CookieMonsterUI ui = new CookieMonsterUI(blocklistManager);
+        CookieMonsterUI ui = new CookieMonsterUI(blocklistManager, decisionLog, trafficLearner, cookieJarPurger,
+                sharedConfigStore, historyScanner, latencyExperiment);
         api.userInterface().registerSuiteTab(TAB_TITLE, ui);
         api.logging().logToOutput(EXTENSION_NAME + ": UI tab registered");
 
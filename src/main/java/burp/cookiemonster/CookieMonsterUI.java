@@ -20,9 +20,14 @@ public class CookieMonsterUI extends JPanel {
     private final JRadioButton allDomainsRadio;
     private final JRadioButton inScopeRadio;
     private final JRadioButton customDomainsRadio;
+    private final JCheckBox ignoreCaseCheckBox;
+    private final OverridesPanel overridesPanel;
     private JPanel customDomainsPanel;
 
-    public CookieMonsterUI(CookieBlocklistManager blocklistManager) {
+    public CookieMonsterUI(CookieBlocklistManager blocklistManager, DecisionLog decisionLog,
+                           TrafficLearner trafficLearner, CookieJarPurger cookieJarPurger,
+                           SharedConfigStore sharedConfigStore, HistoryScanner historyScanner,
+                           LatencyExperiment latencyExperiment) {
         this.blocklistManager = blocklistManager;
         this.cookieListModel = new DefaultListModel<>();
         this.domainListModel = new DefaultListModel<>();
@@ -30,6 +35,10 @@ public class CookieMonsterUI extends JPanel {
         this.domainList = new JList<>(domainListModel);
         this.cookieNameField = new JTextField(20);
         this.domainNameField = new JTextField(20);
+        this.ignoreCaseCheckBox = new JCheckBox("Ignore case when matching cookie names",
+                blocklistManager.isIgnoreCase());
+
+        this.overridesPanel = new OverridesPanel(blocklistManager);
 
         // Initialize radio buttons
         this.filterModeGroup = new ButtonGroup();
@@ -52,7 +61,22 @@ public class CookieMonsterUI extends JPanel {
         JPanel domainPanel = createDomainFilterPanel();
         splitPane.setRightComponent(domainPanel);
 
-        add(splitPane, BorderLayout.CENTER);
+        // Rules tab: split pane plus shared-config controls
+        JPanel rulesPanel = new JPanel(new BorderLayout(10, 10));
+        rulesPanel.add(splitPane, BorderLayout.CENTER);
+        rulesPanel.add(createSharedConfigPanel(sharedConfigStore), BorderLayout.SOUTH);
+
+        // Tabs: rule management and diagnostics
+        JTabbedPane tabbedPane = new JTabbedPane();
+        tabbedPane.addTab("Rules", rulesPanel);
+        tabbedPane.addTab("Overrides", overridesPanel);
+        tabbedPane.addTab("Decisions", new DecisionViewerPanel(decisionLog));
+        tabbedPane.addTab("Suggestions", new SuggestionsPanel(trafficLearner, blocklistManager, this::blockCookie));
+        tabbedPane.addTab("Cookie Jar", new CookieJarPanel(cookieJarPurger));
+        tabbedPane.addTab("History Scan", new HistoryScanPanel(historyScanner));
+        tabbedPane.addTab("Experiment", new ExperimentPanel(latencyExperiment));
+
+        add(tabbedPane, BorderLayout.CENTER);
 
         // Load existing data
         refreshCookieList();
@@ -73,6 +97,9 @@ public class CookieMonsterUI extends JPanel {
         descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
         descLabel.setForeground(Color.GRAY);
         headerPanel.add(descLabel, BorderLayout.NORTH);
+
+        ignoreCaseCheckBox.addActionListener(e -> blocklistManager.setIgnoreCase(ignoreCaseCheckBox.isSelected()));
+        headerPanel.add(ignoreCaseCheckBox, BorderLayout.CENTER);
         panel.add(headerPanel, BorderLayout.NORTH);
 
         // Cookie list with scroll pane
@@ -81,6 +108,16 @@ public class CookieMonsterUI extends JPanel {
         centerPanel.add(listLabel, BorderLayout.NORTH);
 
         cookieList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        cookieList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                // Show path conditions next to the cookie name
+                java.util.Set<String> conditions = blocklistManager.getPathConditions((String) value);
+                Object text = conditions.isEmpty() ? value : value + "  (only " + String.join(", ", conditions) + ")";
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
         JScrollPane scrollPane = new JScrollPane(cookieList);
         scrollPane.setPreferredSize(new Dimension(300, 250));
         centerPanel.add(scrollPane, BorderLayout.CENTER);
@@ -108,6 +145,10 @@ public class CookieMonsterUI extends JPanel {
         removeButton.addActionListener(e -> removeSelectedCookies());
         buttonPanel.add(removeButton);
 
+        JButton pathsButton = new JButton("Edit Paths...");
+        pathsButton.addActionListener(e -> editPathConditions());
+        buttonPanel.add(pathsButton);
+
         JButton clearButton = new JButton("Clear All");
         clearButton.addActionListener(e -> clearAllCookies());
         buttonPanel.add(clearButton);
@@ -288,6 +329,62 @@ public class CookieMonsterUI extends JPanel {
         return panel;
     }
 
+    /**
+     * Create the panel that turns configuration sharing between local Burp instances on and off.
+     */
+    private JPanel createSharedConfigPanel(SharedConfigStore sharedConfigStore) {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+
+        JCheckBox shareCheckBox = new JCheckBox("Share configuration with other local Burp instances",
+                sharedConfigStore.isEnabled());
+        JLabel pathLabel = new JLabel("(" + sharedConfigStore.getPath() + ")");
+        pathLabel.setFont(new Font(pathLabel.getFont().getName(), Font.PLAIN, 11));
+        pathLabel.setForeground(Color.GRAY);
+
+        shareCheckBox.addActionListener(e -> {
+            if (shareCheckBox.isSelected()) {
+                try {
+                    sharedConfigStore.enable();
+                } catch (Exception ex) {
+                    shareCheckBox.setSelected(false);
+                    JOptionPane.showMessageDialog(this,
+                            "Could not open shared configuration: " + ex.getMessage(),
+                            "Shared Configuration",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            } else {
+                sharedConfigStore.disable();
+            }
+        });
+        sharedConfigStore.setRemoteUpdateListener(() -> SwingUtilities.invokeLater(this::reloadFromManager));
+
+        panel.add(shareCheckBox);
+        panel.add(pathLabel);
+        return panel;
+    }
+
+    /**
+     * Reload every control from the blocklist manager after the configuration changed elsewhere.
+     */
+    private void reloadFromManager() {
+        refreshCookieList();
+        refreshDomainList();
+        overridesPanel.refresh();
+        ignoreCaseCheckBox.setSelected(blocklistManager.isIgnoreCase());
+        switch (blocklistManager.getFilterMode()) {
+            case IN_SCOPE_ONLY:
+                inScopeRadio.setSelected(true);
+                break;
+            case CUSTOM_DOMAINS:
+                customDomainsRadio.setSelected(true);
+                break;
+            default:
+                allDomainsRadio.setSelected(true);
+                break;
+        }
+        updateDomainFilterUI();
+    }
+
     /**
      * Handle filter mode changes.
      */
@@ -380,6 +477,15 @@ public class CookieMonsterUI extends JPanel {
         }
     }
 
+    /**
+     * Block a single cookie on behalf of another tab.
+     */
+    private void blockCookie(String cookieName) {
+        if (blocklistManager.addCookie(cookieName)) {
+            cookieListModel.addElement(cookieName.trim());
+        }
+    }
+
     private void removeSelectedCookies() {
         java.util.List<String> selectedCookies = cookieList.getSelectedValuesList();
 
@@ -397,6 +503,44 @@ public class CookieMonsterUI extends JPanel {
         }
     }
 
+    /**
+     * Edit the path conditions of the selected cookie, one condition per line.
+     */
+    private void editPathConditions() {
+        java.util.List<String> selectedCookies = cookieList.getSelectedValuesList();
+
+        if (selectedCookies.size() != 1) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select exactly one cookie to edit its path conditions",
+                    "No Selection",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        String cookieName = selectedCookies.get(0);
+        JTextArea conditionsArea = new JTextArea(String.join("\n", blocklistManager.getPathConditions(cookieName)),
+                8, 30);
+        JPanel dialogPanel = new JPanel(new BorderLayout(5, 5));
+        JLabel descLabel = new JLabel("<html>Only remove '" + cookieName + "' under these path prefixes, one per " +
+                "line.<br>Use /api/ for any host or example.com/api/ for one domain. Leave empty to remove it " +
+                "everywhere.</html>");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        dialogPanel.add(descLabel, BorderLayout.NORTH);
+        dialogPanel.add(new JScrollPane(conditionsArea), BorderLayout.CENTER);
+
+        int result = JOptionPane.showConfirmDialog(this, dialogPanel,
+                "Path Conditions",
+                JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE);
+
+        if (result == JOptionPane.OK_OPTION) {
+            blocklistManager.setPathConditions(cookieName,
+                    java.util.Arrays.asList(conditionsArea.getText().split("\n")));
+            cookieList.repaint();
+        }
+    }
+
     private void clearAllCookies() {
         if (cookieListModel.isEmpty()) {
             return;
@@ -0,0 +1,124 @@
+package burp.cookiemonster;
+
+/**
+ * Immutable rule that forces the value of a cookie.
+ * The serialized {@code name=value} pair is built once, so the request path only
+ * copies it into the rewritten {@code Cookie} header.
+ * An override can be limited to a domain and its subdomains; additions always are,
+ * so a forced cookie is never sent to hosts it was not meant for.
+ */
+public final class CookieOverride {
+    private final String name;
+    private final String value;
+    private final OverrideType type;
+    private final String domain;
+    private final String pair;
+
+    /**
+     * @param name   The cookie name
+     * @param value  The value to send
+     * @param type   Whether to only replace an existing cookie or also add a missing one
+     * @param domain The lower-cased domain the override is limited to, or null for any host
+     */
+    public CookieOverride(String name, String value, OverrideType type, String domain) {
+        this.name = name;
+        this.value = value;
+        this.type = type;
+        this.domain = domain;
+        this.pair = name + "=" + value;
+    }
+
+    /**
+     * Parse the domain of an override, written like the domain of a path condition
+     * ("example.com" or "example.com/").
+     *
+     * @param domain The domain as entered
+     * @return The lower-cased domain, or null if it is blank, carries a path or cannot be a host
+     */
+    public static String parseDomain(String domain) {
+        String[] parsed = PathRuleTable.parseCondition(domain);
+        if (parsed == null || parsed[0] == null || !parsed[1].equals("/")) {
+            return null;
+        }
+        for (int i = 0; i < parsed[0].length(); i++) {
+            char c = parsed[0].charAt(i);
+            if (c <= ' ' || c >= 0x7F || c == '=' || c == ';' || c == ',') {
+                return null;
+            }
+        }
+        return parsed[0];
+    }
+
+    /**
+     * Check whether an override type may be used with a domain.
+     *
+     * @param type   The override type
+     * @param domain The parsed domain, or null for any host
+     * @return false for an addition without a domain
+     */
+    public static boolean isValidScope(OverrideType type, String domain) {
+        return type != null && (domain != null || type != OverrideType.ADD);
+    }
+
+    /**
+     * Check whether a name and value can be written into a {@code Cookie} header as they are.
+     *
+     * @param name  The cookie name
+     * @param value The cookie value
+     * @return true if the name is a non-empty token and the value holds no separators
+     */
+    public static boolean isValid(String name, String value) {
+        if (name == null || name.isEmpty() || value == null) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c <= ' ' || c >= 0x7F || c == '=' || c == ';' || c == ',') {
+                return false;
+            }
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < ' ' || c == 0x7F || c == ';') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public OverrideType getType() {
+        return type;
+    }
+
+    /**
+     * @return The domain the override is limited to, or null if it applies to any host
+     */
+    public String getDomain() {
+        return domain;
+    }
+
+    /**
+     * Check whether the override applies to a request host.
+     *
+     * @param host The request host
+     * @return true if the override has no domain, or the host is the domain or one of its subdomains
+     */
+    public boolean appliesTo(String host) {
+        return domain == null || FilterSnapshot.hostMatches(host, domain);
+    }
+
+    /**
+     * @return The cookie as it is written into the header, e.g. "lang=en"
+     */
+    public String getPair() {
+        return pair;
+    }
+}
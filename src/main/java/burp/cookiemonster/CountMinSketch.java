@@ -0,0 +1,91 @@
+package burp.cookiemonster;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size count-min sketch for estimating per-key totals in a stream.
+ * Estimates never undercount; overcounts are bounded by the sketch width.
+ * Updates are lock-free and memory use does not grow with the number of keys.
+ */
+public class CountMinSketch {
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+            0xD6E8FEB86659FD93L, 0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L
+    };
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth Number of hash rows (at most 6); more rows reduce the chance of a bad estimate
+     * @param width Counters per row, rounded up to a power of two; wider rows reduce overcounting
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + SEEDS.length + ": " + depth);
+        }
+        if (width <= 0) {
+            throw new IllegalArgumentException("Width must be positive: " + width);
+        }
+        int size = Integer.highestOneBit(width);
+        if (size < width) {
+            size <<= 1;
+        }
+        this.depth = depth;
+        this.width = size;
+        this.mask = size - 1;
+        this.counters = new AtomicLongArray(depth * size);
+    }
+
+    /**
+     * Add an amount to the total for a key.
+     *
+     * @param key    The key to update
+     * @param amount The amount to add (must not be negative)
+     */
+    public void add(String key, long amount) {
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(row * width + index(key, row), amount);
+        }
+    }
+
+    /**
+     * Estimate the total for a key.
+     *
+     * @param key The key to look up
+     * @return An upper bound on the total added for the key
+     */
+    public long estimate(String key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + index(key, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Reset all counters to zero.
+     */
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * Hash the characters of the key with the row's seed. Each row hashes the key on its own,
+     * so keys that share a {@code String.hashCode()} do not collide in every row.
+     */
+    private int index(String key, int row) {
+        long h = SEEDS[row];
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,100 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.core.ToolType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring buffer of recent filter decisions.
+ * Writers claim a slot with a single atomic increment and never block; once the
+ * buffer is full the oldest decisions are overwritten. Readers take a snapshot
+ * only when they need one, so an unobserved log costs one small object per request.
+ */
+public class DecisionLog {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final AtomicReferenceArray<FilterDecision> slots;
+    private final AtomicLong cursor;
+    private final int mask;
+    private volatile long clearedBefore;
+
+    public DecisionLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Maximum number of decisions kept, rounded up to a power of two
+     */
+    public DecisionLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.cursor = new AtomicLong();
+        this.mask = size - 1;
+    }
+
+    /**
+     * Record a decision, overwriting the oldest one if the buffer is full.
+     *
+     * @param host           The target host of the request
+     * @param tool           The Burp tool that issued the request
+     * @param removedCookies Comma-separated names of removed cookies, or an empty string
+     * @param outcome        What the filter did with the request
+     * @param handlerNanos   Time spent in the handler, in nanoseconds
+     */
+    public void record(String host, ToolType tool, String removedCookies,
+                       DecisionOutcome outcome, long handlerNanos) {
+        long sequence = cursor.getAndIncrement();
+        slots.set((int) (sequence & mask),
+                new FilterDecision(sequence, System.currentTimeMillis(), host, tool,
+                        removedCookies, outcome, handlerNanos));
+    }
+
+    /**
+     * Copy the decisions currently held in the buffer, oldest first.
+     * Slots that are being overwritten while the copy runs are skipped.
+     *
+     * @return A new list of the buffered decisions
+     */
+    public List<FilterDecision> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(Math.max(0, end - slots.length()), clearedBefore);
+        List<FilterDecision> decisions = new ArrayList<>((int) Math.max(0, end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            FilterDecision decision = slots.get((int) (sequence & mask));
+            if (decision != null && decision.getSequence() == sequence) {
+                decisions.add(decision);
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * Hide all decisions recorded so far from future snapshots.
+     */
+    public void clear() {
+        clearedBefore = cursor.get();
+    }
+
+    /**
+     * @return The total number of decisions recorded since the extension was loaded
+     */
+    public long totalRecorded() {
+        return cursor.get();
+    }
+
+    /**
+     * @return The maximum number of decisions kept
+     */
+    public int capacity() {
+        return slots.length();
+    }
+}
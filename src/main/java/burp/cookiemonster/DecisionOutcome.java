@@ -0,0 +1,66 @@
+package burp.cookiemonster;
+
+/**
+ * Describes what the cookie filter did with a single request.
+ */
+public enum DecisionOutcome {
+    /**
+     * One or more blocked cookies were removed.
+     */
+    REMOVED("Removed"),
+
+    /**
+     * No cookie was removed, but one or more overrides replaced or added a cookie.
+     */
+    OVERRIDDEN("Overridden"),
+
+    /**
+     * The request carried no cookies.
+     */
+    NO_COOKIES("No cookies"),
+
+    /**
+     * The blocklist and the override list were both empty.
+     */
+    EMPTY_BLOCKLIST("Blocklist empty"),
+
+    /**
+     * Skipped because the request is not in Burp's scope (In-Scope Only mode).
+     */
+    OUT_OF_SCOPE("Out of scope"),
+
+    /**
+     * Skipped because the host is not in the custom domain list (Custom Domain List mode).
+     */
+    DOMAIN_NOT_LISTED("Domain not listed"),
+
+    /**
+     * The request was processed but none of its cookies are blocked.
+     */
+    NO_MATCH("No match"),
+
+    /**
+     * Blocked cookies were present, but their path conditions did not match the request path.
+     */
+    PATH_NOT_MATCHED("Path not matched"),
+
+    /**
+     * The handler failed and forwarded the original request.
+     */
+    ERROR("Error");
+
+    private final String displayName;
+
+    DecisionOutcome(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
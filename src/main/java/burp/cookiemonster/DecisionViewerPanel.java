@@ -0,0 +1,232 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Paged, filterable view of the most recent filter decisions.
+ * The decision log is only copied while this panel is visible on screen.
+ */
+public class DecisionViewerPanel extends JPanel {
+    private static final int PAGE_SIZE = 200;
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final String ALL_OUTCOMES = "All outcomes";
+
+    private final DecisionLog decisionLog;
+    private final DecisionTableModel tableModel;
+    private final JTextField filterField;
+    private final JComboBox<Object> outcomeCombo;
+    private final JCheckBox pausedCheckBox;
+    private final JLabel pageLabel;
+    private final JLabel statusLabel;
+    private final JButton previousButton;
+    private final JButton nextButton;
+    private final Timer refreshTimer;
+    private int page;
+
+    public DecisionViewerPanel(DecisionLog decisionLog) {
+        this.decisionLog = decisionLog;
+        this.tableModel = new DecisionTableModel();
+        this.filterField = new JTextField(20);
+        this.outcomeCombo = new JComboBox<>();
+        this.pausedCheckBox = new JCheckBox("Pause");
+        this.pageLabel = new JLabel();
+        this.statusLabel = new JLabel();
+        this.previousButton = new JButton("< Newer");
+        this.nextButton = new JButton("Older >");
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("Recent Decisions"));
+
+        // Header with description and filters
+        JPanel headerPanel = new JPanel(new BorderLayout(5, 5));
+        JLabel descLabel = new JLabel("The last " + decisionLog.capacity() +
+                " requests seen by the filter, newest first");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        headerPanel.add(descLabel, BorderLayout.NORTH);
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        filterPanel.add(new JLabel("Filter:"));
+        filterField.addActionListener(e -> resetToFirstPage());
+        filterPanel.add(filterField);
+
+        outcomeCombo.addItem(ALL_OUTCOMES);
+        for (DecisionOutcome outcome : DecisionOutcome.values()) {
+            outcomeCombo.addItem(outcome);
+        }
+        outcomeCombo.addActionListener(e -> resetToFirstPage());
+        filterPanel.add(outcomeCombo);
+        filterPanel.add(pausedCheckBox);
+        headerPanel.add(filterPanel, BorderLayout.CENTER);
+        panelPadding(headerPanel);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Decision table
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(0).setPreferredWidth(90);
+        table.getColumnModel().getColumn(1).setPreferredWidth(220);
+        table.getColumnModel().getColumn(2).setPreferredWidth(90);
+        table.getColumnModel().getColumn(3).setPreferredWidth(120);
+        table.getColumnModel().getColumn(4).setPreferredWidth(260);
+        table.getColumnModel().getColumn(5).setPreferredWidth(80);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Paging controls
+        JPanel footerPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel pagingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        previousButton.addActionListener(e -> changePage(-1));
+        nextButton.addActionListener(e -> changePage(1));
+        pagingPanel.add(previousButton);
+        pagingPanel.add(pageLabel);
+        pagingPanel.add(nextButton);
+
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> {
+            decisionLog.clear();
+            resetToFirstPage();
+        });
+        pagingPanel.add(clearButton);
+        footerPanel.add(pagingPanel, BorderLayout.WEST);
+        footerPanel.add(statusLabel, BorderLayout.EAST);
+        panelPadding(footerPanel);
+        add(footerPanel, BorderLayout.SOUTH);
+
+        // Only copy the log while the table is actually on screen
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> {
+            if (isShowing() && !pausedCheckBox.isSelected()) {
+                refresh();
+            }
+        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void panelPadding(JPanel panel) {
+        panel.setBorder(new EmptyBorder(0, 5, 0, 5));
+    }
+
+    private void resetToFirstPage() {
+        page = 0;
+        refresh();
+    }
+
+    private void changePage(int delta) {
+        page = Math.max(0, page + delta);
+        refresh();
+    }
+
+    /**
+     * Copy the decision log, apply the filters and show the current page.
+     */
+    private void refresh() {
+        List<FilterDecision> decisions = decisionLog.snapshot();
+        String filter = filterField.getText().trim().toLowerCase(Locale.ROOT);
+        Object selectedOutcome = outcomeCombo.getSelectedItem();
+
+        // Newest first
+        List<FilterDecision> matching = new ArrayList<>();
+        for (int i = decisions.size() - 1; i >= 0; i--) {
+            FilterDecision decision = decisions.get(i);
+            if (selectedOutcome instanceof DecisionOutcome && decision.getOutcome() != selectedOutcome) {
+                continue;
+            }
+            if (!filter.isEmpty() && !matchesFilter(decision, filter)) {
+                continue;
+            }
+            matching.add(decision);
+        }
+
+        int pageCount = Math.max(1, (matching.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(page, pageCount - 1);
+        int from = page * PAGE_SIZE;
+        int to = Math.min(matching.size(), from + PAGE_SIZE);
+        tableModel.setDecisions(new ArrayList<>(matching.subList(from, to)));
+
+        pageLabel.setText("Page " + (page + 1) + " of " + pageCount);
+        previousButton.setEnabled(page > 0);
+        nextButton.setEnabled(page < pageCount - 1);
+        statusLabel.setText(String.format("Showing %d of %d buffered (%d total)",
+                matching.size(), decisions.size(), decisionLog.totalRecorded()));
+    }
+
+    private boolean matchesFilter(FilterDecision decision, String filter) {
+        return contains(decision.getHost(), filter)
+                || contains(decision.getRemovedCookies(), filter)
+                || (decision.getTool() != null && contains(decision.getTool().toolName(), filter))
+                || contains(decision.getOutcome().getDisplayName(), filter);
+    }
+
+    private static boolean contains(String value, String filter) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(filter);
+    }
+
+    /**
+     * Table model over a single page of decisions.
+     */
+    private static class DecisionTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Time", "Host", "Tool", "Outcome", "Cookies Changed", "Time (\u00B5s)"};
+
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        private List<FilterDecision> decisions = new ArrayList<>();
+
+        void setDecisions(List<FilterDecision> decisions) {
+            this.decisions = decisions;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return decisions.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            FilterDecision decision = decisions.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return timeFormat.format(new Date(decision.getTimestamp()));
+                case 1:
+                    return decision.getHost();
+                case 2:
+                    return decision.getTool() != null ? decision.getTool().toolName() : "";
+                case 3:
+                    return decision.getOutcome().getDisplayName();
+                case 4:
+                    return decision.getRemovedCookies();
+                case 5:
+                    return decision.getHandlerNanos() / 1000;
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Controls the A/B latency experiment and shows, per host and removed cookies, how
+ * response times and sizes differ with and without the blocked cookies.
+ */
+public class ExperimentPanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final LatencyExperiment experiment;
+    private final ComparisonTableModel tableModel;
+    private final JCheckBox enabledCheckBox;
+    private final JSpinner sampleRateSpinner;
+    private final JLabel statusLabel;
+    private final Timer refreshTimer;
+
+    public ExperimentPanel(LatencyExperiment experiment) {
+        this.experiment = experiment;
+        this.tableModel = new ComparisonTableModel();
+        this.enabledCheckBox = new JCheckBox("Run A/B latency experiment", experiment.isEnabled());
+        this.sampleRateSpinner = new JSpinner(new SpinnerNumberModel(
+                (int) Math.round(experiment.getSampleRate() * 100), 1, 100, 1));
+        this.statusLabel = new JLabel();
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("Latency Experiment"));
+
+        // Header with description and experiment controls
+        JPanel headerPanel = new JPanel(new BorderLayout(5, 5));
+        headerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        JLabel descLabel = new JLabel("Re-sends a sample of modified GET/HEAD/OPTIONS requests with and without " +
+                "the blocked cookies and compares response times. Each sample sends the request twice more.");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        headerPanel.add(descLabel, BorderLayout.NORTH);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        enabledCheckBox.addActionListener(e -> experiment.setEnabled(enabledCheckBox.isSelected()));
+        controlPanel.add(enabledCheckBox);
+        controlPanel.add(new JLabel("Sample"));
+        sampleRateSpinner.addChangeListener(e ->
+                experiment.setSampleRate(((Number) sampleRateSpinner.getValue()).intValue() / 100.0));
+        controlPanel.add(sampleRateSpinner);
+        controlPanel.add(new JLabel("% of modified requests"));
+        headerPanel.add(controlPanel, BorderLayout.CENTER);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Result table, sortable by any column
+        JTable table = new JTable(tableModel);
+        table.setRowSorter(new TableRowSorter<>(tableModel));
+        table.getColumnModel().getColumn(0).setPreferredWidth(180);
+        table.getColumnModel().getColumn(1).setPreferredWidth(180);
+        table.getColumnModel().getColumn(3).setPreferredWidth(140);
+        table.getColumnModel().getColumn(4).setPreferredWidth(140);
+        table.getColumnModel().getColumn(8).setPreferredWidth(160);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Buttons and status
+        JPanel footerPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            experiment.reset();
+            refresh();
+        });
+        buttonPanel.add(resetButton);
+        footerPanel.add(buttonPanel, BorderLayout.WEST);
+        footerPanel.add(statusLabel, BorderLayout.EAST);
+        footerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        add(footerPanel, BorderLayout.SOUTH);
+
+        // Only recompute percentiles while the table is on screen
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> {
+            if (isShowing()) {
+                refresh();
+            }
+        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+        refresh();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        List<Row> rows = new ArrayList<>();
+        for (LatencyExperiment.Comparison comparison : experiment.comparisons()) {
+            if (comparison.getSamples() > 0) {
+                rows.add(new Row(comparison));
+            }
+        }
+        tableModel.setRows(rows);
+        statusLabel.setText(String.format("%d sampled, %d dropped (pool busy), %d failed",
+                experiment.sampledCount(), experiment.droppedCount(), experiment.failedCount()));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+
+    private static String formatPercentiles(long[] nanos) {
+        return String.format("%.1f / %.1f / %.1f", millis(nanos[0]), millis(nanos[1]), millis(nanos[2]));
+    }
+
+    /**
+     * Percentiles computed once per refresh, so sorting the table does not recompute them.
+     */
+    private static final class Row {
+        private final String host;
+        private final String cookies;
+        private final long samples;
+        private final String stripped;
+        private final String original;
+        private final long[] delta;
+        private final String size;
+
+        Row(LatencyExperiment.Comparison comparison) {
+            this.host = comparison.getHost();
+            this.cookies = comparison.getCookies();
+            this.samples = comparison.getSamples();
+            this.stripped = formatPercentiles(comparison.strippedPercentiles(PERCENTILES));
+            this.original = formatPercentiles(comparison.originalPercentiles(PERCENTILES));
+            this.delta = comparison.deltaPercentiles(PERCENTILES);
+            this.size = String.format("%.0f / %.0f", comparison.getMeanStrippedBytes(),
+                    comparison.getMeanOriginalBytes());
+        }
+    }
+
+    /**
+     * Table model over experiment results.
+     */
+    private static class ComparisonTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Host", "Cookies Removed", "Samples",
+                "Stripped p50/p90/p99 (ms)", "Original p50/p90/p99 (ms)",
+                "\u0394 p50 (ms)", "\u0394 p90 (ms)", "\u0394 p99 (ms)", "Avg Bytes (stripped / original)"};
+
+        private List<Row> rows = new ArrayList<>();
+
+        void setRows(List<Row> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            switch (columnIndex) {
+                case 2:
+                    return Long.class;
+                case 5:
+                case 6:
+                case 7:
+                    return Double.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            Row row = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return row.host;
+                case 1:
+                    return row.cookies;
+                case 2:
+                    return row.samples;
+                case 3:
+                    return row.stripped;
+                case 4:
+                    return row.original;
+                case 5:
+                    return millis(row.delta[0]);
+                case 6:
+                    return millis(row.delta[1]);
+                case 7:
+                    return millis(row.delta[2]);
+                case 8:
+                    return row.size;
+                default:
+                    return "";
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.core.ToolType;
+
+/**
+ * Immutable record of a single decision made by the cookie filter.
+ */
+public final class FilterDecision {
+    private final long sequence;
+    private final long timestamp;
+    private final String host;
+    private final ToolType tool;
+    private final String removedCookies;
+    private final DecisionOutcome outcome;
+    private final long handlerNanos;
+
+    public FilterDecision(long sequence, long timestamp, String host, ToolType tool,
+                          String removedCookies, DecisionOutcome outcome, long handlerNanos) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.host = host;
+        this.tool = tool;
+        this.removedCookies = removedCookies;
+        this.outcome = outcome;
+        this.handlerNanos = handlerNanos;
+    }
+
+    /**
+     * @return The position of this decision in the log, starting at zero
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return The wall-clock time of the decision in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public ToolType getTool() {
+        return tool;
+    }
+
+    /**
+     * @return Comma-separated names of the removed cookies, followed by replaced or added ones
+     * marked as such, or an empty string if nothing changed
+     */
+    public String getRemovedCookies() {
+        return removedCookies;
+    }
+
+    public DecisionOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return Time spent in the handler for this request, in nanoseconds
+     */
+    public long getHandlerNanos() {
+        return handlerNanos;
+    }
+}
@@ -0,0 +1,152 @@
+package burp.cookiemonster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled view of the filter configuration.
+ * The request path reads one snapshot per request, so the blocklist, filter mode and
+ * domain list it sees always belong together even while the UI is changing them.
+ * Path conditions are compiled alongside the blocklist, so their cookie indexes always
+ * refer to the same table. Overrides get a name table of their own, with the override
+ * for each name stored at the name's index.
+ */
+public final class FilterSnapshot {
+    private final BlockedNameTable blockedNames;
+    private final PathRuleTable pathRules;
+    private final BlockedNameTable overrideNames;
+    private final CookieOverride[] overrides;
+    private final boolean hasAdditions;
+    private final DomainFilterMode filterMode;
+    private final String[] customDomains;
+
+    private FilterSnapshot(BlockedNameTable blockedNames, PathRuleTable pathRules, BlockedNameTable overrideNames,
+                           CookieOverride[] overrides, DomainFilterMode filterMode, String[] customDomains) {
+        this.blockedNames = blockedNames;
+        this.pathRules = pathRules;
+        this.overrideNames = overrideNames;
+        this.overrides = overrides;
+        boolean additions = false;
+        for (CookieOverride override : overrides) {
+            additions |= override.getType() == OverrideType.ADD;
+        }
+        this.hasAdditions = additions;
+        this.filterMode = filterMode;
+        this.customDomains = customDomains;
+    }
+
+    /**
+     * Compile a snapshot.
+     *
+     * @param blockedCookies The blocked cookie names
+     * @param ignoreCase     true to match cookie names regardless of ASCII letter case
+     * @param pathConditions Path-prefix conditions per blocked cookie name
+     * @param overrides      The cookie overrides; the first one wins when names collide
+     * @param filterMode     The domain filter mode
+     * @param customDomains  The custom domains, already lower-cased
+     * @return A new snapshot
+     */
+    public static FilterSnapshot compile(Collection<String> blockedCookies, boolean ignoreCase,
+                                         Map<String, ? extends Collection<String>> pathConditions,
+                                         Collection<CookieOverride> overrides,
+                                         DomainFilterMode filterMode, Collection<String> customDomains) {
+        BlockedNameTable blockedNames = BlockedNameTable.build(blockedCookies, ignoreCase);
+
+        List<String> overrideNameList = new ArrayList<>();
+        for (CookieOverride override : overrides) {
+            overrideNameList.add(override.getName());
+        }
+        BlockedNameTable overrideNames = BlockedNameTable.build(overrideNameList, ignoreCase);
+        CookieOverride[] overridesByIndex = new CookieOverride[overrideNames.size()];
+        for (CookieOverride override : overrides) {
+            int index = overrideNames.indexOf(override.getName(), 0, override.getName().length());
+            if (overridesByIndex[index] == null) {
+                overridesByIndex[index] = override;
+            }
+        }
+
+        return new FilterSnapshot(blockedNames, PathRuleTable.build(blockedNames, blockedCookies, pathConditions),
+                overrideNames, overridesByIndex, filterMode, customDomains.toArray(new String[0]));
+    }
+
+    public BlockedNameTable getBlockedNames() {
+        return blockedNames;
+    }
+
+    /**
+     * @return The path conditions, indexed like {@link #getBlockedNames()}
+     */
+    public PathRuleTable getPathRules() {
+        return pathRules;
+    }
+
+    /**
+     * @return The names of the overridden cookies
+     */
+    public BlockedNameTable getOverrideNames() {
+        return overrideNames;
+    }
+
+    /**
+     * Get an override by the index of its name.
+     *
+     * @param index A value returned by {@code getOverrideNames().indexOf(...)}
+     * @return The override
+     */
+    public CookieOverride getOverride(int index) {
+        return overrides[index];
+    }
+
+    /**
+     * @return true if at least one override adds its cookie when the request lacks it
+     */
+    public boolean hasAdditions() {
+        return hasAdditions;
+    }
+
+    public DomainFilterMode getFilterMode() {
+        return filterMode;
+    }
+
+    /**
+     * Check if a host matches any custom domain, including subdomains.
+     * Compares in place without lower-casing or concatenating strings.
+     *
+     * @param host The host to check (e.g., "www.example.com")
+     * @return true if the host matches a custom domain, false otherwise
+     */
+    public boolean matchesCustomDomain(String host) {
+        if (host == null || host.isEmpty()) {
+            return false;
+        }
+        for (String domain : customDomains) {
+            if (hostMatches(host, domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a host is a domain or one of its subdomains, ignoring case.
+     *
+     * @param host   The host to check
+     * @param domain The domain, already lower-cased
+     * @return true if the host matches
+     */
+    static boolean hostMatches(String host, String domain) {
+        if (host == null) {
+            return false;
+        }
+        int hostLength = host.length();
+        int domainLength = domain.length();
+        if (hostLength == domainLength) {
+            return host.equalsIgnoreCase(domain);
+        }
+        return hostLength > domainLength
+                && host.charAt(hostLength - domainLength - 1) == '.'
+                && host.regionMatches(true, hostLength - domainLength, domain, 0, domainLength);
+    }
+}
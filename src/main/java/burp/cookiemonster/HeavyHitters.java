@@ -0,0 +1,165 @@
+package burp.cookiemonster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving top-K tracker. Keeps at most {@code capacity} keys; when a new
+ * key arrives and the table is full, the key with the smallest count is replaced and
+ * the newcomer inherits that count as its error bound.
+ * Entries are kept in a min-heap on their count, so every update is O(log K).
+ */
+public class HeavyHitters {
+    private final int capacity;
+    private final Map<String, Entry> entries;
+    private final Entry[] heap;
+
+    /**
+     * @param capacity Maximum number of keys tracked
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+        this.heap = new Entry[capacity];
+    }
+
+    /**
+     * Add a weight to a key.
+     *
+     * @param key    The key to update
+     * @param weight The weight to add
+     * @param detail Extra information kept with the key (e.g., the last host it was seen on)
+     */
+    public synchronized void offer(String key, long weight, String detail) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.count += weight;
+            entry.detail = detail;
+            siftDown(entry.position);
+            return;
+        }
+
+        int size = entries.size();
+        if (size < capacity) {
+            entry = new Entry(key, weight, 0, detail);
+            entries.put(key, entry);
+            heap[size] = entry;
+            entry.position = size;
+            siftUp(size);
+            return;
+        }
+
+        // Replace the smallest entry, at the top of the heap, with the new key
+        Entry smallest = heap[0];
+        entries.remove(smallest.key);
+        entry = new Entry(key, smallest.count + weight, smallest.count, detail);
+        entries.put(key, entry);
+        heap[0] = entry;
+        entry.position = 0;
+        siftDown(0);
+    }
+
+    /**
+     * Get the tracked keys, largest count first.
+     *
+     * @return A new list of copies of the tracked entries
+     */
+    public synchronized List<Entry> top() {
+        List<Entry> result = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            result.add(new Entry(entry.key, entry.count, entry.error, entry.detail));
+        }
+        result.sort(Comparator.comparingLong(Entry::getCount).reversed());
+        return result;
+    }
+
+    /**
+     * Forget all tracked keys.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        Arrays.fill(heap, null);
+    }
+
+    private void siftUp(int position) {
+        Entry entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(entry, position);
+    }
+
+    private void siftDown(int position) {
+        int size = entries.size();
+        Entry entry = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (entry.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(entry, position);
+    }
+
+    private void place(Entry entry, int position) {
+        heap[position] = entry;
+        entry.position = position;
+    }
+
+    /**
+     * A tracked key with its estimated count.
+     */
+    public static final class Entry {
+        private final String key;
+        private long count;
+        private final long error;
+        private String detail;
+        private int position;
+
+        private Entry(String key, long count, long error, String detail) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.detail = detail;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return The estimated count; overestimates by at most {@link #getError()}
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
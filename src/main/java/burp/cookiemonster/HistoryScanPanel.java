@@ -0,0 +1,201 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the current rules over Proxy history and the site map and lists the requests
+ * they would have modified. Hits stream into the table while the scan runs.
+ */
+public class HistoryScanPanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 250;
+    private static final int MAX_ROWS_PER_REFRESH = 5000;
+
+    private final HistoryScanner scanner;
+    private final HitTableModel tableModel;
+    private final JCheckBox proxyCheckBox;
+    private final JCheckBox siteMapCheckBox;
+    private final JButton scanButton;
+    private final JButton cancelButton;
+    private final JProgressBar progressBar;
+    private final JLabel statusLabel;
+    private final Timer refreshTimer;
+
+    public HistoryScanPanel(HistoryScanner scanner) {
+        this.scanner = scanner;
+        this.tableModel = new HitTableModel();
+        this.proxyCheckBox = new JCheckBox("Proxy history", true);
+        this.siteMapCheckBox = new JCheckBox("Site map", true);
+        this.scanButton = new JButton("Scan History");
+        this.cancelButton = new JButton("Cancel");
+        this.progressBar = new JProgressBar();
+        this.statusLabel = new JLabel("Run a scan to see which captured requests the current rules would modify");
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("History Scan"));
+
+        // Header with description and scan controls
+        JPanel headerPanel = new JPanel(new BorderLayout(5, 5));
+        headerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        JLabel descLabel = new JLabel("Find already-captured requests that carry blocked cookies " +
+                "(e.g., Repeater or Scanner items to re-run)");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        headerPanel.add(descLabel, BorderLayout.NORTH);
+
+        JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        controlPanel.add(proxyCheckBox);
+        controlPanel.add(siteMapCheckBox);
+        scanButton.addActionListener(e -> startScan());
+        controlPanel.add(scanButton);
+        cancelButton.addActionListener(e -> scanner.cancel());
+        cancelButton.setEnabled(false);
+        controlPanel.add(cancelButton);
+        progressBar.setStringPainted(true);
+        controlPanel.add(progressBar);
+        headerPanel.add(controlPanel, BorderLayout.CENTER);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Hit table
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(70);
+        table.getColumnModel().getColumn(1).setPreferredWidth(60);
+        table.getColumnModel().getColumn(2).setPreferredWidth(60);
+        table.getColumnModel().getColumn(3).setPreferredWidth(450);
+        table.getColumnModel().getColumn(4).setPreferredWidth(200);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.add(statusLabel);
+        add(statusPanel, BorderLayout.SOUTH);
+
+        // Drain results in batches while a scan runs
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> drainResults());
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        // Resume draining if a scan was running, or finished, while the panel was detached
+        if (scanner.isRunning() || !scanButton.isEnabled()) {
+            refreshTimer.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void startScan() {
+        if (!proxyCheckBox.isSelected() && !siteMapCheckBox.isSelected()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select Proxy history, the site map, or both",
+                    "Nothing to Scan",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        if (!scanner.start(proxyCheckBox.isSelected(), siteMapCheckBox.isSelected())) {
+            return;
+        }
+        tableModel.clear();
+        scanButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        progressBar.setValue(0);
+        statusLabel.setText("Scanning...");
+        refreshTimer.start();
+    }
+
+    private void drainResults() {
+        // Check before draining so hits queued just before the scan ends are not missed
+        boolean finished = !scanner.isRunning();
+        List<HistoryScanner.ScanHit> batch = new ArrayList<>();
+        scanner.drainResults(batch, MAX_ROWS_PER_REFRESH);
+        tableModel.addHits(batch);
+
+        int total = scanner.totalCount();
+        int processed = scanner.processedCount();
+        progressBar.setMaximum(Math.max(1, total));
+        progressBar.setValue(processed);
+        progressBar.setString(processed + " / " + total);
+
+        if (finished && batch.size() < MAX_ROWS_PER_REFRESH) {
+            refreshTimer.stop();
+            scanButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            statusLabel.setText(String.format("%s: %d of %d item(s) would be modified",
+                    scanner.isCancelled() ? "Cancelled" : "Finished", scanner.hitCount(), processed));
+        } else {
+            statusLabel.setText(String.format("Scanning... %d hit(s) so far", scanner.hitCount()));
+        }
+    }
+
+    /**
+     * Append-only table model over scan hits.
+     */
+    private static class HitTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Source", "#", "Method", "URL", "Blocked Cookies"};
+
+        private final List<HistoryScanner.ScanHit> hits = new ArrayList<>();
+
+        void addHits(List<HistoryScanner.ScanHit> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int first = hits.size();
+            hits.addAll(batch);
+            fireTableRowsInserted(first, hits.size() - 1);
+        }
+
+        void clear() {
+            hits.clear();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return hits.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            return columnIndex == 1 ? Integer.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            HistoryScanner.ScanHit hit = hits.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return hit.getSource();
+                case 1:
+                    return hit.getId();
+                case 2:
+                    return hit.getMethod();
+                case 3:
+                    return hit.getUrl();
+                case 4:
+                    return hit.getCookies();
+                default:
+                    return "";
+            }
+        }
+    }
+}
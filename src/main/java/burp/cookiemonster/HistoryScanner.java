@@ -0,0 +1,323 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the current blocklist over already-captured traffic (Proxy history and the site map)
+ * to show which requests a rule would have modified. Items are checked in parallel
+ * fork-join chunks; hits are queued for the UI to drain incrementally, and a scan can be
+ * cancelled at any time.
+ */
+public class HistoryScanner {
+    private static final int CHUNK_SIZE = 512;
+    private static final byte[] COOKIE_HEADER = "cookie:".getBytes(StandardCharsets.US_ASCII);
+
+    private final CookieBlocklistManager blocklistManager;
+    private final MontoyaApi api;
+    private final Logging logging;
+    private final Queue<ScanHit> results;
+    private final AtomicInteger processed;
+    private final AtomicInteger total;
+    private final AtomicInteger hits;
+    private final AtomicBoolean running;
+    private volatile AtomicBoolean cancelled;
+
+    public HistoryScanner(CookieBlocklistManager blocklistManager, MontoyaApi api) {
+        this.blocklistManager = blocklistManager;
+        this.api = api;
+        this.logging = api.logging();
+        this.results = new ConcurrentLinkedQueue<>();
+        this.processed = new AtomicInteger();
+        this.total = new AtomicInteger();
+        this.hits = new AtomicInteger();
+        this.running = new AtomicBoolean();
+        this.cancelled = new AtomicBoolean();
+    }
+
+    /**
+     * Start a scan in the background using the current rules.
+     *
+     * @param includeProxyHistory true to scan Proxy history
+     * @param includeSiteMap      true to scan the site map
+     * @return false if a scan is already running
+     */
+    public boolean start(boolean includeProxyHistory, boolean includeSiteMap) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        results.clear();
+        processed.set(0);
+        total.set(0);
+        hits.set(0);
+        AtomicBoolean scanCancelled = new AtomicBoolean();
+        cancelled = scanCancelled;
+
+        // Snapshot the rules once so the whole scan sees a single configuration
+        FilterSnapshot config = blocklistManager.snapshot();
+
+        Thread thread = new Thread(() -> {
+            ForkJoinPool scanPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            try {
+                List<ProxyHttpRequestResponse> proxyItems = includeProxyHistory
+                        ? api.proxy().history() : Collections.emptyList();
+                List<HttpRequestResponse> siteMapItems = includeSiteMap
+                        ? api.siteMap().requestResponses() : Collections.emptyList();
+                total.set(proxyItems.size() + siteMapItems.size());
+
+                if (!scanCancelled.get() && !proxyItems.isEmpty()) {
+                    scanPool.invoke(new ScanTask(index -> {
+                        ProxyHttpRequestResponse item = proxyItems.get(index);
+                        scanRequest("Proxy", item.id(), item.request(), config);
+                    }, 0, proxyItems.size(), scanCancelled));
+                }
+                if (!scanCancelled.get() && !siteMapItems.isEmpty()) {
+                    scanPool.invoke(new ScanTask(
+                            index -> scanRequest("Site map", index + 1, siteMapItems.get(index).request(), config),
+                            0, siteMapItems.size(), scanCancelled));
+                }
+            } catch (Exception e) {
+                logging.logToError("Cookie Monster history scan error: " + e.getMessage());
+            } finally {
+                scanPool.shutdown();
+                running.set(false);
+            }
+        }, "Cookie Monster history scan");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Stop the running scan. Hits found so far are kept.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return true if the last scan was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public int processedCount() {
+        return processed.get();
+    }
+
+    public int totalCount() {
+        return total.get();
+    }
+
+    public int hitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Move queued hits into a list.
+     *
+     * @param into The list to add hits to
+     * @param max  The maximum number of hits to move
+     * @return The number of hits moved
+     */
+    public int drainResults(List<ScanHit> into, int max) {
+        int drained = 0;
+        ScanHit hit;
+        while (drained < max && (hit = results.poll()) != null) {
+            into.add(hit);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Check one request against the rules and queue a hit if it carries blocked cookies.
+     */
+    private void scanRequest(String source, int id, HttpRequest request, FilterSnapshot config) {
+        try {
+            if (request == null || !passesDomainFilter(request, config)) {
+                return;
+            }
+
+            // Only copy the header block, never the body
+            int headerEnd = request.bodyOffset();
+            byte[] headers = request.toByteArray().subArray(0, headerEnd).getBytes();
+
+            Set<String> matched = null;
+            int lineStart = 0;
+            while (lineStart < headers.length) {
+                int lineEnd = lineStart;
+                while (lineEnd < headers.length && headers[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > lineStart && headers[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd == lineStart && lineStart > 0) {
+                    break;
+                }
+                if (startsWithIgnoreCase(headers, lineStart, contentEnd, COOKIE_HEADER)) {
+                    if (matched == null) {
+                        matched = new LinkedHashSet<>();
+                    }
+                    config.getBlockedNames().collectBlockedInHeader(headers,
+                            lineStart + COOKIE_HEADER.length, contentEnd, matched);
+                }
+                lineStart = lineEnd + 1;
+            }
+
+            if (matched != null && !config.getPathRules().isEmpty()) {
+                dropPathNotMatched(matched, request, config);
+            }
+
+            if (matched != null && !matched.isEmpty()) {
+                results.add(new ScanHit(source, id, request.method(), request.url(), String.join(", ", matched)));
+                hits.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logging.logToError("Cookie Monster history scan error on " + source + " item " + id + ": " + e.getMessage());
+        } finally {
+            processed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove names whose path conditions do not match the request.
+     */
+    private static void dropPathNotMatched(Set<String> matched, HttpRequest request, FilterSnapshot config) {
+        BlockedNameTable blockedNames = config.getBlockedNames();
+        PathRuleTable pathRules = config.getPathRules();
+        boolean[] pathMatches = pathRules.matchingIds(request.httpService().host(), request.path());
+        matched.removeIf(name -> {
+            int id = blockedNames.indexOf(name, 0, name.length());
+            return pathRules.isConditional(id) && !pathMatches[id];
+        });
+    }
+
+    private boolean passesDomainFilter(HttpRequest request, FilterSnapshot config) {
+        switch (config.getFilterMode()) {
+            case IN_SCOPE_ONLY:
+                return request.isInScope();
+            case CUSTOM_DOMAINS:
+                return config.matchesCustomDomain(request.httpService().host());
+            default:
+                return true;
+        }
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] buffer, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            byte b = buffer[start + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a range of item indexes into chunks and scans them in parallel.
+     */
+    private static final class ScanTask extends RecursiveAction {
+        private final IntConsumer scanner;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean scanCancelled;
+
+        ScanTask(IntConsumer scanner, int from, int to, AtomicBoolean scanCancelled) {
+            this.scanner = scanner;
+            this.from = from;
+            this.to = to;
+            this.scanCancelled = scanCancelled;
+        }
+
+        @Override
+        protected void compute() {
+            if (scanCancelled.get()) {
+                return;
+            }
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to && !scanCancelled.get(); i++) {
+                    scanner.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScanTask(scanner, from, middle, scanCancelled),
+                    new ScanTask(scanner, middle, to, scanCancelled));
+        }
+    }
+
+    /**
+     * A captured request that the current rules would have modified.
+     */
+    public static final class ScanHit {
+        private final String source;
+        private final int id;
+        private final String method;
+        private final String url;
+        private final String cookies;
+
+        public ScanHit(String source, int id, String method, String url, String cookies) {
+            this.source = source;
+            this.id = id;
+            this.method = method;
+            this.url = url;
+            this.cookies = cookies;
+        }
+
+        /**
+         * @return Where the request was found ("Proxy" or "Site map")
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return The Proxy history number, or the position in the site map
+         */
+        public int getId() {
+            return id;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return Comma-separated names of the blocked cookies in the request
+         */
+        public String getCookies() {
+            return cookies;
+        }
+    }
+}
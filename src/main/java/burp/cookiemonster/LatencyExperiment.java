@@ -0,0 +1,319 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.logging.Logging;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in A/B experiment that measures what blocked cookies cost the server.
+ * For a sampled fraction of requests the filter modified, both the request as the
+ * filter sent it ("stripped") and the unmodified request ("original") are sent again,
+ * in random order, from a small bounded pool. Response times and sizes are
+ * aggregated per host and removed cookies in fixed-size reservoirs.
+ *
+ * <p>Only GET, HEAD and OPTIONS requests are sampled, since every sample sends the
+ * request twice more. Experiment requests carry {@link #MARKER_HEADER} with a random
+ * token chosen per instance. The filter strips the marker from requests carrying that
+ * token and does not filter or sample them again, whether or not the experiment is still
+ * on; any other value is treated as an ordinary header. A pair whose experiment was turned
+ * off before both variants were sent is discarded.</p>
+ */
+public class LatencyExperiment {
+    /**
+     * Header that marks requests sent by the experiment. Only the instance's token counts.
+     */
+    public static final String MARKER_HEADER = "X-Cookie-Monster-Experiment";
+
+    private static final int WORKER_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int RESERVOIR_SIZE = 512;
+    private static final int MAX_COMPARISONS = 256;
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final MontoyaApi api;
+    private final Logging logging;
+    private final String markerToken;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, Comparison> comparisons;
+    private final AtomicLong sampled;
+    private final AtomicLong dropped;
+    private final AtomicLong failed;
+    private volatile boolean enabled;
+    private volatile double sampleRate;
+
+    public LatencyExperiment(MontoyaApi api) {
+        this.api = api;
+        this.logging = api.logging();
+        SecureRandom random = new SecureRandom();
+        this.markerToken = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+        this.executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "Cookie Monster experiment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.comparisons = new ConcurrentHashMap<>();
+        this.sampled = new AtomicLong();
+        this.dropped = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.sampleRate = 0.05;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Check whether a marker header value belongs to a request this experiment sent.
+     *
+     * @param value The value of {@link #MARKER_HEADER}
+     * @return true if the value is this instance's token, even after the experiment was turned off
+     */
+    public boolean isOwnMarker(String value) {
+        return markerToken.equals(value);
+    }
+
+    /**
+     * @return The fraction of modified requests that are sampled, between 0 and 1
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate The fraction of modified requests to sample, clamped to 0..1
+     */
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    /**
+     * Consider a modified request for sampling. Returns immediately; the variants are
+     * sent on the experiment pool, and the sample is dropped if the pool is busy.
+     *
+     * @param original The request with overrides applied but blocked cookies kept
+     * @param modified The request as the filter sent it
+     * @param host     The target host
+     * @param cookies  The blocked cookies the filter removed, used to group results
+     * @return true if the request was queued
+     */
+    public boolean offer(HttpRequest original, HttpRequest modified, String host, String cookies) {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        if (!SAFE_METHODS.contains(original.method())) {
+            return false;
+        }
+        Comparison comparison = comparisonFor(host, cookies);
+        if (comparison == null) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        try {
+            executor.execute(() -> run(original, modified, comparison));
+            sampled.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * @return Snapshot of the results, one entry per host and set of removed cookies
+     */
+    public List<Comparison> comparisons() {
+        return new ArrayList<>(comparisons.values());
+    }
+
+    /**
+     * @return The number of requests queued for comparison
+     */
+    public long sampledCount() {
+        return sampled.get();
+    }
+
+    /**
+     * @return The number of samples dropped because the pool or the result table was full
+     */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of samples where a variant got no response
+     */
+    public long failedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Discard all results and counters.
+     */
+    public void reset() {
+        comparisons.clear();
+        sampled.set(0);
+        dropped.set(0);
+        failed.set(0);
+    }
+
+    /**
+     * Stop the experiment and release its threads.
+     */
+    public void shutdown() {
+        enabled = false;
+        executor.shutdownNow();
+    }
+
+    private Comparison comparisonFor(String host, String cookies) {
+        String key = host + ' ' + cookies;
+        Comparison comparison = comparisons.get(key);
+        if (comparison == null && comparisons.size() < MAX_COMPARISONS) {
+            comparison = comparisons.computeIfAbsent(key, k -> new Comparison(host, cookies));
+        }
+        return comparison;
+    }
+
+    /**
+     * Send both variants, in random order so neither one always benefits from a warm cache.
+     */
+    private void run(HttpRequest original, HttpRequest modified, Comparison comparison) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            HttpRequest strippedVariant = modified.withAddedHeader(MARKER_HEADER, markerToken);
+            HttpRequest originalVariant = original.withAddedHeader(MARKER_HEADER, markerToken);
+            long[] stripped;
+            long[] unmodified;
+            if (ThreadLocalRandom.current().nextBoolean()) {
+                stripped = send(strippedVariant);
+                unmodified = send(originalVariant);
+            } else {
+                unmodified = send(originalVariant);
+                stripped = send(strippedVariant);
+            }
+            if (stripped == null || unmodified == null) {
+                failed.incrementAndGet();
+                return;
+            }
+            // Turned off mid-pair: the results are no longer wanted
+            if (!enabled) {
+                return;
+            }
+            comparison.record(stripped[0], stripped[1], unmodified[0], unmodified[1]);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logging.logToError("Cookie Monster experiment error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Send one variant.
+     *
+     * @return {elapsed nanoseconds, response bytes}, or null if there was no response
+     */
+    private long[] send(HttpRequest request) {
+        long start = System.nanoTime();
+        HttpRequestResponse requestResponse = api.http().sendRequest(request);
+        long elapsed = System.nanoTime() - start;
+        if (requestResponse == null || requestResponse.response() == null) {
+            return null;
+        }
+        return new long[]{elapsed, requestResponse.response().toByteArray().length()};
+    }
+
+    /**
+     * Paired measurements for one host and set of removed cookies.
+     */
+    public static final class Comparison {
+        private final String host;
+        private final String cookies;
+        private final LatencyReservoir strippedNanos = new LatencyReservoir(RESERVOIR_SIZE);
+        private final LatencyReservoir originalNanos = new LatencyReservoir(RESERVOIR_SIZE);
+        private final LatencyReservoir deltaNanos = new LatencyReservoir(RESERVOIR_SIZE);
+        private final AtomicLong strippedBytes = new AtomicLong();
+        private final AtomicLong originalBytes = new AtomicLong();
+
+        Comparison(String host, String cookies) {
+            this.host = host;
+            this.cookies = cookies;
+        }
+
+        void record(long strippedElapsed, long strippedSize, long originalElapsed, long originalSize) {
+            strippedNanos.add(strippedElapsed);
+            originalNanos.add(originalElapsed);
+            deltaNanos.add(originalElapsed - strippedElapsed);
+            strippedBytes.addAndGet(strippedSize);
+            originalBytes.addAndGet(originalSize);
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * @return The blocked cookies the filter removed in the sampled requests
+         */
+        public String getCookies() {
+            return cookies;
+        }
+
+        /**
+         * @return The number of completed pairs
+         */
+        public long getSamples() {
+            return deltaNanos.count();
+        }
+
+        /**
+         * @return Response time percentiles, in nanoseconds, without the blocked cookies
+         */
+        public long[] strippedPercentiles(double... percentiles) {
+            return strippedNanos.percentiles(percentiles);
+        }
+
+        /**
+         * @return Response time percentiles, in nanoseconds, with the original cookies
+         */
+        public long[] originalPercentiles(double... percentiles) {
+            return originalNanos.percentiles(percentiles);
+        }
+
+        /**
+         * @return Percentiles of the paired difference (original minus stripped), in nanoseconds;
+         * positive values mean the cookies made the request slower
+         */
+        public long[] deltaPercentiles(double... percentiles) {
+            return deltaNanos.percentiles(percentiles);
+        }
+
+        public double getMeanStrippedBytes() {
+            long samples = getSamples();
+            return samples == 0 ? 0 : (double) strippedBytes.get() / samples;
+        }
+
+        public double getMeanOriginalBytes() {
+            long samples = getSamples();
+            return samples == 0 ? 0 : (double) originalBytes.get() / samples;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package burp.cookiemonster;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Fixed-size uniform sample of a stream of values (reservoir sampling, Algorithm R).
+ * Memory use stays at the capacity no matter how many values are added, while
+ * percentiles remain an unbiased estimate over everything seen.
+ */
+public final class LatencyReservoir {
+    private final long[] samples;
+    private long count;
+    private long sum;
+
+    /**
+     * @param capacity The maximum number of values kept
+     */
+    public LatencyReservoir(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Add a value to the stream.
+     *
+     * @param value The value
+     */
+    public synchronized void add(long value) {
+        count++;
+        sum += value;
+        if (count <= samples.length) {
+            samples[(int) (count - 1)] = value;
+        } else {
+            long slot = ThreadLocalRandom.current().nextLong(count);
+            if (slot < samples.length) {
+                samples[(int) slot] = value;
+            }
+        }
+    }
+
+    /**
+     * @return The number of values added, including those no longer held
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @return The mean of every value added, or 0 if there are none
+     */
+    public synchronized double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Estimate several percentiles from one sorted copy of the sample.
+     *
+     * @param percentiles Percentiles between 0 and 100
+     * @return The estimates in the same order, or zeros if there are no values
+     */
+    public long[] percentiles(double... percentiles) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(sorted);
+        long[] result = new long[percentiles.length];
+        for (int i = 0; i < percentiles.length && sorted.length > 0; i++) {
+            result[i] = percentile(sorted, percentiles[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Nearest-rank percentile of a sorted array.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
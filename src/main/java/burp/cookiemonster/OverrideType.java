@@ -0,0 +1,31 @@
+package burp.cookiemonster;
+
+/**
+ * Defines how a cookie override changes a request.
+ */
+public enum OverrideType {
+    /**
+     * Replace the value of the cookie when the request carries it.
+     */
+    REPLACE("Replace"),
+
+    /**
+     * Set the cookie to the value: replace it when present, add it when missing.
+     */
+    ADD("Add");
+
+    private final String displayName;
+
+    OverrideType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
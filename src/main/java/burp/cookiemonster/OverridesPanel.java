@@ -0,0 +1,242 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages cookie overrides: cookies whose value is replaced, or added when missing,
+ * in the same pass that removes blocked cookies.
+ */
+public class OverridesPanel extends JPanel {
+    private final CookieBlocklistManager blocklistManager;
+    private final OverrideTableModel tableModel;
+    private final JTable table;
+    private final JTextField nameField;
+    private final JTextField valueField;
+    private final JTextField domainField;
+    private final JComboBox<OverrideType> typeComboBox;
+    private final JLabel statusLabel;
+
+    public OverridesPanel(CookieBlocklistManager blocklistManager) {
+        this.blocklistManager = blocklistManager;
+        this.tableModel = new OverrideTableModel();
+        this.table = new JTable(tableModel);
+        this.nameField = new JTextField(15);
+        this.valueField = new JTextField(25);
+        this.domainField = new JTextField(15);
+        this.typeComboBox = new JComboBox<>(OverrideType.values());
+        this.statusLabel = new JLabel("Total overrides: 0");
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("Cookie Overrides"));
+
+        // Header with description
+        JPanel headerPanel = new JPanel(new BorderLayout(5, 5));
+        headerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        JLabel descLabel = new JLabel("Replace sets the value of a cookie the request already carries; " +
+                "Add also inserts it when missing and needs a domain (e.g., example.com, subdomains included). " +
+                "Overrides follow the domain filter and win over the blocklist.");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        headerPanel.add(descLabel, BorderLayout.NORTH);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Override table
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        table.getColumnModel().getColumn(1).setPreferredWidth(400);
+        table.getColumnModel().getColumn(2).setPreferredWidth(80);
+        table.getColumnModel().getColumn(3).setPreferredWidth(200);
+        table.getSelectionModel().addListSelectionListener(e -> loadSelection());
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Input panel for adding overrides
+        JPanel inputPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel addPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        addPanel.add(new JLabel("Cookie Name:"));
+        addPanel.add(nameField);
+        addPanel.add(new JLabel("Value:"));
+        valueField.addActionListener(e -> addOverride());
+        addPanel.add(valueField);
+        addPanel.add(new JLabel("Domain:"));
+        domainField.addActionListener(e -> addOverride());
+        addPanel.add(domainField);
+        addPanel.add(typeComboBox);
+
+        JButton addButton = new JButton("Add / Update");
+        addButton.addActionListener(e -> addOverride());
+        addPanel.add(addButton);
+        inputPanel.add(addPanel, BorderLayout.NORTH);
+
+        // Button panel
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+        JButton removeButton = new JButton("Remove Selected");
+        removeButton.addActionListener(e -> removeSelected());
+        buttonPanel.add(removeButton);
+
+        JButton clearButton = new JButton("Clear All");
+        clearButton.addActionListener(e -> clearAll());
+        buttonPanel.add(clearButton);
+        inputPanel.add(buttonPanel, BorderLayout.CENTER);
+
+        // Status panel
+        JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        statusPanel.add(statusLabel);
+        inputPanel.add(statusPanel, BorderLayout.SOUTH);
+        add(inputPanel, BorderLayout.SOUTH);
+
+        refresh();
+    }
+
+    /**
+     * Reload the table from the blocklist manager.
+     */
+    public void refresh() {
+        tableModel.setOverrides(blocklistManager.getOverrides());
+        statusLabel.setText("Total overrides: " + tableModel.getRowCount());
+    }
+
+    private void loadSelection() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            return;
+        }
+        CookieOverride override = tableModel.getOverride(row);
+        nameField.setText(override.getName());
+        valueField.setText(override.getValue());
+        domainField.setText(override.getDomain() == null ? "" : override.getDomain());
+        typeComboBox.setSelectedItem(override.getType());
+    }
+
+    private void addOverride() {
+        String name = nameField.getText().trim();
+        String value = valueField.getText().trim();
+
+        if (name.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter a cookie name",
+                    "Invalid Input",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        OverrideType type = (OverrideType) typeComboBox.getSelectedItem();
+        String domain = domainField.getText().trim();
+        if (type == OverrideType.ADD && domain.isEmpty()) {
+            JOptionPane.showMessageDialog(this,
+                    "Please enter the domain to add the cookie on (e.g., example.com)",
+                    "Domain Required",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        if (!blocklistManager.putOverride(name, value, type, domain)) {
+            JOptionPane.showMessageDialog(this,
+                    "Invalid override. Cookie names cannot contain spaces, '=', ';' or ',', " +
+                            "values cannot contain ';' or control characters, " +
+                            "and the domain must be a host name without a path",
+                    "Invalid Override",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        nameField.setText("");
+        valueField.setText("");
+        domainField.setText("");
+        nameField.requestFocus();
+        refresh();
+    }
+
+    private void removeSelected() {
+        int[] selectedRows = table.getSelectedRows();
+
+        if (selectedRows.length == 0) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select one or more overrides to remove",
+                    "No Selection",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        List<String> names = new ArrayList<>();
+        for (int row : selectedRows) {
+            names.add(tableModel.getOverride(row).getName());
+        }
+        for (String name : names) {
+            blocklistManager.removeOverride(name);
+        }
+        refresh();
+    }
+
+    private void clearAll() {
+        if (tableModel.getRowCount() == 0) {
+            return;
+        }
+
+        int result = JOptionPane.showConfirmDialog(this,
+                "Are you sure you want to clear all cookie overrides?",
+                "Confirm Clear",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+
+        if (result == JOptionPane.YES_OPTION) {
+            blocklistManager.clearOverrides();
+            refresh();
+        }
+    }
+
+    /**
+     * Table model over the configured overrides.
+     */
+    private static class OverrideTableModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Cookie Name", "Value", "Type", "Domain"};
+
+        private List<CookieOverride> overrides = new ArrayList<>();
+
+        void setOverrides(List<CookieOverride> overrides) {
+            this.overrides = overrides;
+            fireTableDataChanged();
+        }
+
+        CookieOverride getOverride(int row) {
+            return overrides.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return overrides.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            CookieOverride override = overrides.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return override.getName();
+                case 1:
+                    return override.getValue();
+                case 2:
+                    return override.getType().getDisplayName();
+                case 3:
+                    return override.getDomain() == null ? "Any host" : override.getDomain();
+                default:
+                    return "";
+            }
+        }
+    }
+}
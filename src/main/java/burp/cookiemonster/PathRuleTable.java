@@ -0,0 +1,320 @@
+package burp.cookiemonster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable path-prefix conditions for blocked cookies, compiled into segment tries.
+ * A cookie with conditions is only removed when the request path starts with one of its
+ * prefixes, compared whole segment by whole segment ("/api" matches "/api/v1" but not
+ * "/apidocs"). Conditions without a host share one trie; host-scoped conditions get one
+ * trie per domain, which also covers its subdomains.
+ * A request is resolved once: the tries for its host are found by comparing each domain
+ * against the end of the host in place, and the path is walked once through each of them,
+ * one binary-searched child per segment, marking every name whose prefix it passes.
+ */
+public final class PathRuleTable {
+    private static final PathRuleTable EMPTY = new PathRuleTable(new boolean[0], null, new String[0], new Node[0]);
+
+    private final boolean[] conditional;
+    private final Node anyHost;
+    private final String[] domains;
+    private final Node[] domainTries;
+
+    private PathRuleTable(boolean[] conditional, Node anyHost, String[] domains, Node[] domainTries) {
+        this.conditional = conditional;
+        this.anyHost = anyHost;
+        this.domains = domains;
+        this.domainTries = domainTries;
+    }
+
+    /**
+     * Compile path conditions against a blocked-name table.
+     * A name listed without conditions stays unconditional even if another name that
+     * is equal under the table's case rule has conditions.
+     *
+     * @param blockedNames   The compiled blocklist
+     * @param blockedCookies The blocked cookie names as configured
+     * @param conditions     Conditions per cookie name, e.g. "/api/" or "example.com/api/"
+     * @return A new table
+     */
+    public static PathRuleTable build(BlockedNameTable blockedNames, Collection<String> blockedCookies,
+                                      Map<String, ? extends Collection<String>> conditions) {
+        if (conditions.isEmpty() || blockedNames.size() == 0) {
+            return EMPTY;
+        }
+
+        // A name is conditional only if every spelling of it carries conditions
+        boolean[] conditional = new boolean[blockedNames.size()];
+        boolean[] unconditional = new boolean[blockedNames.size()];
+        for (String cookie : blockedCookies) {
+            int id = blockedNames.indexOf(cookie, 0, cookie.length());
+            if (id < 0) {
+                continue;
+            }
+            Collection<String> cookieConditions = conditions.get(cookie);
+            if (cookieConditions == null || cookieConditions.isEmpty()) {
+                unconditional[id] = true;
+            } else {
+                conditional[id] = true;
+            }
+        }
+
+        Builder anyHost = null;
+        Map<String, Builder> byDomain = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : conditions.entrySet()) {
+            String cookie = entry.getKey();
+            int id = blockedNames.indexOf(cookie, 0, cookie.length());
+            if (id < 0 || unconditional[id]) {
+                continue;
+            }
+            for (String condition : entry.getValue()) {
+                String[] parsed = parseCondition(condition);
+                if (parsed == null) {
+                    continue;
+                }
+                Builder root;
+                if (parsed[0] == null) {
+                    if (anyHost == null) {
+                        anyHost = new Builder();
+                    }
+                    root = anyHost;
+                } else {
+                    root = byDomain.computeIfAbsent(parsed[0], domain -> new Builder());
+                }
+                root.insert(parsed[1], id);
+            }
+        }
+        boolean anyConditional = false;
+        for (int id = 0; id < conditional.length; id++) {
+            conditional[id] &= !unconditional[id];
+            anyConditional |= conditional[id];
+        }
+        if (!anyConditional) {
+            return EMPTY;
+        }
+
+        String[] domains = new String[byDomain.size()];
+        Node[] domainTries = new Node[byDomain.size()];
+        int i = 0;
+        for (Map.Entry<String, Builder> entry : byDomain.entrySet()) {
+            domains[i] = entry.getKey();
+            domainTries[i++] = entry.getValue().freeze();
+        }
+        return new PathRuleTable(conditional, anyHost == null ? null : anyHost.freeze(), domains, domainTries);
+    }
+
+    /**
+     * @return A shared table without conditions
+     */
+    public static PathRuleTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Split a condition into its optional domain and its path prefix.
+     * Accepts "/api/" (any host) and "example.com/api/" (that domain and its subdomains).
+     *
+     * @param condition The condition as entered
+     * @return {domain or null, path}, or null if the condition is blank
+     */
+    public static String[] parseCondition(String condition) {
+        if (condition == null || condition.trim().isEmpty()) {
+            return null;
+        }
+        String trimmed = condition.trim();
+        if (trimmed.startsWith("/")) {
+            return new String[]{null, trimmed};
+        }
+        int slash = trimmed.indexOf('/');
+        String domain = (slash < 0 ? trimmed : trimmed.substring(0, slash)).toLowerCase(Locale.ROOT);
+        return new String[]{domain, slash < 0 ? "/" : trimmed.substring(slash)};
+    }
+
+    /**
+     * @return true if no blocked cookie has path conditions
+     */
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * Check whether a blocked name only applies under certain paths.
+     *
+     * @param id The index of the name in the blocked-name table
+     * @return true if the name has path conditions
+     */
+    public boolean isConditional(int id) {
+        return id >= 0 && id < conditional.length && conditional[id];
+    }
+
+    /**
+     * Resolve the path conditions for one request.
+     *
+     * @param host The request host
+     * @param path The request path, optionally followed by a query string
+     * @return Indexed by name: true if one of the name's conditions matches the request
+     */
+    public boolean[] matchingIds(String host, String path) {
+        boolean[] matches = new boolean[conditional.length];
+        if (path == null) {
+            return matches;
+        }
+        int end = path.length();
+        for (int i = 0; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+
+        if (anyHost != null) {
+            anyHost.mark(path, end, matches);
+        }
+        // Domains are lower-cased when compiled; the host is compared in place
+        for (int i = 0; i < domains.length; i++) {
+            if (FilterSnapshot.hostMatches(host, domains[i])) {
+                domainTries[i].mark(path, end, matches);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Check whether a blocked name should be removed from a request.
+     * To check several names for the same request, resolve it once with {@link #matchingIds}.
+     *
+     * @param id   The index of the name in the blocked-name table
+     * @param host The request host
+     * @param path The request path, optionally followed by a query string
+     * @return true if the name has no conditions or one of them matches
+     */
+    public boolean allows(int id, String host, String path) {
+        return !isConditional(id) || matchingIds(host, path)[id];
+    }
+
+    /**
+     * A trie node: one path segment, its children, and the names whose prefix ends here.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+
+        private final String segment;
+        private final Node[] children;
+        private final int[] ids;
+
+        Node(String segment, Node[] children, int[] ids) {
+            this.segment = segment;
+            this.children = children;
+            this.ids = ids;
+        }
+
+        /**
+         * Find the child for a path segment. Children are sorted by segment.
+         */
+        Node child(String path, int offset, int length) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(children[middle].segment, path, offset, length);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Walk the path from this node and mark every name whose prefix is passed.
+         *
+         * @param end Where the path ends, before any query string or fragment
+         */
+        void mark(String path, int end, boolean[] matches) {
+            Node node = this;
+            int position = 0;
+            while (true) {
+                for (int id : node.ids) {
+                    matches[id] = true;
+                }
+                while (position < end && path.charAt(position) == '/') {
+                    position++;
+                }
+                if (position >= end) {
+                    return;
+                }
+                int segmentEnd = position;
+                while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+                    segmentEnd++;
+                }
+                node = node.child(path, position, segmentEnd - position);
+                if (node == null) {
+                    return;
+                }
+                position = segmentEnd;
+            }
+        }
+
+        /**
+         * Compare a segment with a region of the path, in {@link String#compareTo} order.
+         */
+        private static int compare(String segment, String path, int offset, int length) {
+            int shared = Math.min(segment.length(), length);
+            for (int i = 0; i < shared; i++) {
+                int difference = segment.charAt(i) - path.charAt(offset + i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return segment.length() - length;
+        }
+    }
+
+    /**
+     * Mutable node used while compiling.
+     */
+    private static final class Builder {
+        private final Map<String, Builder> children = new TreeMap<>();
+        private final List<Integer> ids = new ArrayList<>();
+
+        void insert(String path, int id) {
+            Builder node = this;
+            for (String segment : path.split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.children.computeIfAbsent(segment, s -> new Builder());
+                }
+            }
+            if (!node.ids.contains(id)) {
+                node.ids.add(id);
+            }
+        }
+
+        Node freeze() {
+            return freeze("");
+        }
+
+        private Node freeze(String segment) {
+            Node[] frozenChildren = children.isEmpty() ? Node.NO_CHILDREN : new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<String, Builder> child : children.entrySet()) {
+                frozenChildren[i++] = child.getValue().freeze(child.getKey());
+            }
+            int[] frozenIds = ids.isEmpty() ? Node.NO_IDS : new int[ids.size()];
+            for (int j = 0; j < frozenIds.length; j++) {
+                frozenIds[j] = ids.get(j);
+            }
+            return new Node(segment, frozenChildren, frozenIds);
+        }
+    }
+}
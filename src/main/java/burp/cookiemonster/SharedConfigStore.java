@@ -0,0 +1,561 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.logging.Logging;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares the blocklist configuration between Burp instances on the same machine
+ * through a memory-mapped file.
+ *
+ * <p>The file starts with a fixed header followed by a text payload:</p>
+ * <pre>
+ *   0  int   magic ("CMCF")
+ *   4  int   format version
+ *   8  long  generation (odd while a write is in progress)
+ *  16  int   payload length
+ *  24  long  id of the instance that wrote the payload
+ *  32  ...   payload (UTF-8, one "key=value" per line)
+ * </pre>
+ *
+ * <p>Writers take an exclusive file lock, bump the generation to an odd value, write the
+ * payload and bump it again (seqlock). A generation left odd by a writer that died
+ * mid-write is rounded up by the next writer. A background thread polls the generation
+ * and only copies and parses the payload when it changes, so the request path never
+ * does any of this work.</p>
+ */
+public class SharedConfigStore {
+    public static final Path DEFAULT_PATH = Paths.get(System.getProperty("user.home"),
+            ".cookie-monster", "shared-config.mmap");
+
+    private static final int MAGIC = 0x434D4346;
+    private static final int FORMAT_VERSION = 1;
+    private static final int REGION_SIZE = 1 << 20;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int GENERATION_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int WRITER_OFFSET = 24;
+    private static final int PAYLOAD_OFFSET = 32;
+    private static final long POLL_INTERVAL_MS = 25;
+    private static final int LOCK_ATTEMPTS = 1000;
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final CookieBlocklistManager blocklistManager;
+    private final Logging logging;
+    private final Path path;
+    private final long instanceId;
+    private final ScheduledExecutorService executor;
+    private volatile Runnable remoteUpdateListener;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private ScheduledFuture<?> poller;
+    private long lastGeneration;
+    private byte[] lastPayload;
+
+    public SharedConfigStore(CookieBlocklistManager blocklistManager, Logging logging) {
+        this(blocklistManager, logging, DEFAULT_PATH);
+    }
+
+    public SharedConfigStore(CookieBlocklistManager blocklistManager, Logging logging, Path path) {
+        this.blocklistManager = blocklistManager;
+        this.logging = logging;
+        this.path = path;
+        this.instanceId = ThreadLocalRandom.current().nextLong();
+        this.lastPayload = new byte[0];
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Cookie Monster shared config");
+            thread.setDaemon(true);
+            return thread;
+        });
+        blocklistManager.addChangeListener(() -> {
+            if (isEnabled()) {
+                executor.execute(this::publish);
+            }
+        });
+    }
+
+    /**
+     * @return The shared file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Set a listener that runs after a configuration from another instance has been applied.
+     * Called on the shared-config thread.
+     *
+     * @param listener The listener, or null to remove it
+     */
+    public void setRemoteUpdateListener(Runnable listener) {
+        this.remoteUpdateListener = listener;
+    }
+
+    /**
+     * @return true if the shared-config mode is on
+     */
+    public synchronized boolean isEnabled() {
+        return buffer != null;
+    }
+
+    /**
+     * Turn on the shared-config mode. If the file already holds a configuration it is
+     * adopted; otherwise the local configuration is published to it.
+     *
+     * @throws IOException if the file cannot be created, mapped or has an incompatible format
+     */
+    public synchronized void enable() throws IOException {
+        if (buffer != null) {
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        FileChannel fileChannel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            boolean initialised;
+            try (FileLock ignored = lockFile(fileChannel)) {
+                initialised = mapped.getInt(MAGIC_OFFSET) == MAGIC;
+                if (initialised && mapped.getInt(VERSION_OFFSET) != FORMAT_VERSION) {
+                    throw new IOException("Shared config file " + path + " has format version " +
+                            mapped.getInt(VERSION_OFFSET) + ", expected " + FORMAT_VERSION);
+                }
+                if (!initialised) {
+                    mapped.putInt(VERSION_OFFSET, FORMAT_VERSION);
+                    LONG_VIEW.setVolatile(mapped, GENERATION_OFFSET, 0L);
+                    mapped.putInt(LENGTH_OFFSET, 0);
+                    mapped.putInt(MAGIC_OFFSET, MAGIC);
+                }
+            }
+            this.channel = fileChannel;
+            this.buffer = mapped;
+            this.lastGeneration = -1;
+            this.lastPayload = new byte[0];
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+
+        // Adopt an existing configuration, or seed the file with ours
+        executor.execute(() -> {
+            if (!poll()) {
+                publish();
+            }
+        });
+        poller = executor.scheduleWithFixedDelay(this::poll, POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        logging.logToOutput("Cookie Monster: Sharing configuration through " + path);
+    }
+
+    /**
+     * Turn off the shared-config mode. The local configuration is kept.
+     */
+    public synchronized void disable() {
+        if (poller != null) {
+            poller.cancel(false);
+            poller = null;
+        }
+        buffer = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logging.logToError("Cookie Monster: failed to close shared config: " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Stop sharing and release the shared-config thread.
+     */
+    public void shutdown() {
+        disable();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check the generation and apply the shared configuration if another instance changed it.
+     *
+     * @return true if the file holds a configuration, false if nothing was ever published
+     */
+    private boolean poll() {
+        MappedByteBuffer mapped;
+        synchronized (this) {
+            mapped = buffer;
+        }
+        if (mapped == null) {
+            return false;
+        }
+        try {
+            long generation = (long) LONG_VIEW.getVolatile(mapped, GENERATION_OFFSET);
+            if (generation == 0) {
+                return false;
+            }
+            if (generation == lastGeneration || (generation & 1) != 0) {
+                return true;
+            }
+
+            // Copy the payload, then make sure no writer touched it meanwhile
+            long writer = mapped.getLong(WRITER_OFFSET);
+            byte[] payload = readPayload(mapped);
+            if (payload == null) {
+                return true;
+            }
+            // Keep the plain payload reads from moving past the second generation read
+            VarHandle.loadLoadFence();
+            if ((long) LONG_VIEW.getVolatile(mapped, GENERATION_OFFSET) != generation) {
+                return true;
+            }
+
+            boolean firstSync = lastGeneration < 0;
+            lastGeneration = generation;
+            if (writer == instanceId || Arrays.equals(payload, lastPayload)) {
+                return true;
+            }
+            adopt(payload, firstSync);
+        } catch (Exception e) {
+            logging.logToError("Cookie Monster: failed to read shared config: " + e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Write the local configuration to the shared file if it differs from what is there.
+     */
+    private void publish() {
+        byte[] remote = null;
+        boolean firstSync;
+        synchronized (this) {
+            if (buffer == null) {
+                return;
+            }
+            byte[] payload = serialize().getBytes(StandardCharsets.UTF_8);
+            if (Arrays.equals(payload, lastPayload)) {
+                return;
+            }
+            if (payload.length > REGION_SIZE - PAYLOAD_OFFSET) {
+                logging.logToError("Cookie Monster: configuration too large to share (" + payload.length + " bytes)");
+                return;
+            }
+
+            firstSync = lastGeneration < 0;
+            try (FileLock ignored = lockFile()) {
+                long generation = (long) LONG_VIEW.getVolatile(buffer, GENERATION_OFFSET);
+                // A writer that died mid-write leaves an odd generation behind; continue from the next even one
+                if ((generation & 1) != 0) {
+                    generation++;
+                } else if (generation != 0 && generation != lastGeneration) {
+                    // Another instance published since we last synced; holding the lock, nobody is writing it
+                    remote = readPayload(buffer);
+                    lastGeneration = generation;
+                }
+                if (remote == null) {
+                    LONG_VIEW.setVolatile(buffer, GENERATION_OFFSET, generation + 1);
+                    // Keep the plain payload writes from moving before the odd generation store
+                    VarHandle.storeStoreFence();
+                    buffer.putInt(LENGTH_OFFSET, payload.length);
+                    buffer.putLong(WRITER_OFFSET, instanceId);
+                    ByteBuffer view = buffer.duplicate();
+                    view.position(PAYLOAD_OFFSET);
+                    view.put(payload);
+                    LONG_VIEW.setVolatile(buffer, GENERATION_OFFSET, generation + 2);
+                    lastGeneration = generation + 2;
+                    lastPayload = payload;
+                }
+            } catch (IOException e) {
+                logging.logToError("Cookie Monster: failed to write shared config: " + e.getMessage());
+                return;
+            }
+        }
+
+        // Merge the other instance's edit first; applying the result publishes it again
+        if (remote != null) {
+            adopt(remote, firstSync);
+        }
+    }
+
+    /**
+     * Take the exclusive file lock. Another channel on the same file in this JVM (a second
+     * store, or the previous one during an extension reload) holds the lock in-process,
+     * which the JVM reports as an overlap rather than blocking, so wait for it briefly.
+     *
+     * @throws IOException if the lock cannot be taken
+     */
+    private FileLock lockFile() throws IOException {
+        return lockFile(channel);
+    }
+
+    private static FileLock lockFile(FileChannel fileChannel) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return fileChannel.lock();
+            } catch (OverlappingFileLockException e) {
+                if (attempt == LOCK_ATTEMPTS) {
+                    throw new IOException("shared config file is locked by another store in this JVM");
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while waiting for the shared config lock");
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the payload out of the mapped file.
+     *
+     * @return The payload, or null if the stored length is out of range
+     */
+    private static byte[] readPayload(MappedByteBuffer mapped) {
+        int length = mapped.getInt(LENGTH_OFFSET);
+        if (length < 0 || length > REGION_SIZE - PAYLOAD_OFFSET) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        ByteBuffer view = mapped.duplicate();
+        view.position(PAYLOAD_OFFSET);
+        view.get(payload);
+        return payload;
+    }
+
+    /**
+     * Apply a payload another instance published. Local edits not yet published are merged
+     * into it so that neither side's change is lost; if any survive, the change listener
+     * publishes the merged configuration.
+     *
+     * @param payload   The other instance's payload
+     * @param firstSync true when turning the mode on, where an existing configuration is adopted as is
+     */
+    private void adopt(byte[] payload, boolean firstSync) {
+        String base;
+        synchronized (this) {
+            base = new String(lastPayload, StandardCharsets.UTF_8);
+            lastPayload = payload;
+        }
+        String theirs = new String(payload, StandardCharsets.UTF_8);
+        // Hold off local edits between reading our side and replacing it with the merge
+        synchronized (blocklistManager) {
+            apply(firstSync ? theirs : merge(base, serialize(), theirs));
+        }
+
+        Runnable listener = remoteUpdateListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Three-way merge of serialized configurations. Single-valued keys keep our value if we
+     * changed it and theirs otherwise; for repeated keys, lines we added are added and lines
+     * we removed are removed from theirs.
+     *
+     * @param base   The configuration both sides last agreed on
+     * @param ours   The local configuration
+     * @param theirs The configuration the other instance published
+     * @return The merged configuration
+     */
+    static String merge(String base, String ours, String theirs) {
+        Set<String> baseLines = lines(base);
+        Set<String> ourLines = lines(ours);
+        Set<String> merged = new LinkedHashSet<>();
+        for (String line : lines(theirs)) {
+            if (isSingleValued(line)) {
+                String key = line.substring(0, line.indexOf('=') + 1);
+                String ourLine = lineWithKey(ourLines, key);
+                merged.add(ourLine != null && !baseLines.contains(ourLine) ? ourLine : line);
+            } else if (!baseLines.contains(line) || ourLines.contains(line)) {
+                merged.add(line);
+            }
+        }
+        for (String line : ourLines) {
+            if (!isSingleValued(line) && !baseLines.contains(line)) {
+                merged.add(line);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (String line : merged) {
+            builder.append(line).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> lines(String payload) {
+        Set<String> lines = new LinkedHashSet<>();
+        for (String line : payload.split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isSingleValued(String line) {
+        return line.startsWith("ignoreCase=") || line.startsWith("mode=");
+    }
+
+    private static String lineWithKey(Set<String> lines, String key) {
+        for (String line : lines) {
+            if (line.startsWith(key)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Serialize the local configuration as "key=value" lines.
+     */
+    private String serialize() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("ignoreCase=").append(blocklistManager.isIgnoreCase()).append('\n');
+        builder.append("mode=").append(blocklistManager.getFilterMode().name()).append('\n');
+        for (String cookie : sorted(blocklistManager.getBlockedCookies())) {
+            builder.append("cookie=").append(cookie).append('\n');
+        }
+        for (String domain : sorted(blocklistManager.getCustomDomains())) {
+            builder.append("domain=").append(domain).append('\n');
+        }
+        Map<String, Set<String>> conditions = blocklistManager.getAllPathConditions();
+        for (String cookie : sorted(conditions.keySet())) {
+            // Cookie names never contain spaces, so the first space ends the name
+            for (String condition : conditions.get(cookie)) {
+                builder.append("path=").append(cookie).append(' ').append(condition).append('\n');
+            }
+        }
+        for (CookieOverride override : blocklistManager.getOverrides()) {
+            builder.append("override=").append(override.getType().name()).append(' ');
+            if (override.getDomain() != null) {
+                builder.append(override.getDomain()).append(' ');
+            }
+            builder.append(override.getPair()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parse a payload and replace the local configuration with it.
+     */
+    private void apply(String payload) {
+        boolean ignoreCase = false;
+        DomainFilterMode mode = DomainFilterMode.ALL_DOMAINS;
+        List<String> cookies = new ArrayList<>();
+        List<String> domains = new ArrayList<>();
+        Map<String, Set<String>> conditions = new LinkedHashMap<>();
+        List<CookieOverride> overrides = new ArrayList<>();
+
+        for (String line : payload.split("\n")) {
+            int separator = line.indexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            String key = line.substring(0, separator);
+            String value = line.substring(separator + 1);
+            switch (key) {
+                case "ignoreCase":
+                    ignoreCase = Boolean.parseBoolean(value);
+                    break;
+                case "mode":
+                    try {
+                        mode = DomainFilterMode.valueOf(value);
+                    } catch (IllegalArgumentException e) {
+                        logging.logToError("Cookie Monster: unknown filter mode in shared config: " + value);
+                    }
+                    break;
+                case "cookie":
+                    cookies.add(value);
+                    break;
+                case "domain":
+                    domains.add(value);
+                    break;
+                case "path":
+                    int space = value.indexOf(' ');
+                    if (space > 0) {
+                        conditions.computeIfAbsent(value.substring(0, space), cookie -> new LinkedHashSet<>())
+                                .add(value.substring(space + 1));
+                    }
+                    break;
+                case "override":
+                    CookieOverride override = parseOverride(value);
+                    if (override != null) {
+                        overrides.add(override);
+                    }
+                    break;
+                default:
+                    // Ignore keys written by newer versions
+                    break;
+            }
+        }
+
+        blocklistManager.replaceConfig(cookies, ignoreCase, conditions, overrides, mode, domains);
+    }
+
+    /**
+     * Parse an override written as "TYPE name=value" or "TYPE domain name=value".
+     * Domains never contain '=', so a first word without one is the domain.
+     *
+     * @return The override, or null if the line is malformed
+     */
+    private CookieOverride parseOverride(String value) {
+        int space = value.indexOf(' ');
+        if (space <= 0) {
+            return null;
+        }
+        String domain = null;
+        int pairStart = space + 1;
+        int nextSpace = value.indexOf(' ', pairStart);
+        if (nextSpace > pairStart && value.lastIndexOf('=', nextSpace) < pairStart) {
+            domain = CookieOverride.parseDomain(value.substring(pairStart, nextSpace));
+            pairStart = nextSpace + 1;
+        }
+        int equals = value.indexOf('=', pairStart);
+        if (equals <= pairStart) {
+            return null;
+        }
+        try {
+            return new CookieOverride(value.substring(pairStart, equals), value.substring(equals + 1),
+                    OverrideType.valueOf(value.substring(0, space)), domain);
+        } catch (IllegalArgumentException e) {
+            logging.logToError("Cookie Monster: unknown override type in shared config: " + value);
+            return null;
+        }
+    }
+
+    private static List<String> sorted(Set<String> values) {
+        List<String> list = new ArrayList<>(values);
+        list.sort(null);
+        return list;
+    }
+}
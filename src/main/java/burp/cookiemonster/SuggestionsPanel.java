@@ -0,0 +1,236 @@
+package burp.cookiemonster;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.border.TitledBorder;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Shows cookies learned from traffic, ranked by size and frequency, and lets the
+ * user block them with one click.
+ */
+public class SuggestionsPanel extends JPanel {
+    private static final int REFRESH_INTERVAL_MS = 2000;
+
+    private final TrafficLearner trafficLearner;
+    private final CookieBlocklistManager blocklistManager;
+    private final Consumer<String> blockCookie;
+    private final SuggestionTableModel tableModel;
+    private final JTable table;
+    private final JCheckBox learningCheckBox;
+    private final JLabel statusLabel;
+    private final Timer refreshTimer;
+
+    /**
+     * @param trafficLearner   The learner that records cookies seen in traffic
+     * @param blocklistManager The blocklist, used to show which suggestions are already blocked
+     * @param blockCookie      Callback that adds a cookie name to the blocklist and the Rules tab
+     */
+    public SuggestionsPanel(TrafficLearner trafficLearner, CookieBlocklistManager blocklistManager,
+                            Consumer<String> blockCookie) {
+        this.trafficLearner = trafficLearner;
+        this.blocklistManager = blocklistManager;
+        this.blockCookie = blockCookie;
+        this.tableModel = new SuggestionTableModel();
+        this.table = new JTable(tableModel);
+        this.learningCheckBox = new JCheckBox("Learn cookies from traffic", trafficLearner.isEnabled());
+        this.statusLabel = new JLabel();
+
+        setLayout(new BorderLayout(10, 10));
+        setBorder(new TitledBorder("Suggestions"));
+
+        // Header with description and learning toggle
+        JPanel headerPanel = new JPanel(new BorderLayout(5, 5));
+        headerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        JLabel descLabel = new JLabel("Cookies seen in requests and responses, biggest contributors first. " +
+                "Memory use is fixed regardless of how long learning runs.");
+        descLabel.setFont(new Font(descLabel.getFont().getName(), Font.PLAIN, 12));
+        descLabel.setForeground(Color.GRAY);
+        headerPanel.add(descLabel, BorderLayout.NORTH);
+
+        learningCheckBox.addActionListener(e -> trafficLearner.setEnabled(learningCheckBox.isSelected()));
+        headerPanel.add(learningCheckBox, BorderLayout.CENTER);
+        add(headerPanel, BorderLayout.NORTH);
+
+        // Suggestion table, sortable by any column
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        TableRowSorter<SuggestionTableModel> sorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(sorter);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        table.getColumnModel().getColumn(4).setPreferredWidth(200);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // Buttons and status
+        JPanel footerPanel = new JPanel(new BorderLayout(5, 5));
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+
+        JButton blockButton = new JButton("Block Selected");
+        blockButton.addActionListener(e -> blockSelected());
+        buttonPanel.add(blockButton);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        buttonPanel.add(refreshButton);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> reset());
+        buttonPanel.add(resetButton);
+
+        footerPanel.add(buttonPanel, BorderLayout.WEST);
+        footerPanel.add(statusLabel, BorderLayout.EAST);
+        footerPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
+        add(footerPanel, BorderLayout.SOUTH);
+
+        // Only rebuild the ranking while the table is on screen
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> {
+            if (isShowing() && trafficLearner.isEnabled()) {
+                refresh();
+            }
+        });
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refreshTimer.start();
+        refresh();
+    }
+
+    @Override
+    public void removeNotify() {
+        refreshTimer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        // Replacing the rows clears the selection, so restore it by cookie name
+        Set<String> selectedNames = new HashSet<>();
+        for (int viewRow : table.getSelectedRows()) {
+            selectedNames.add(tableModel.getSuggestion(table.convertRowIndexToModel(viewRow)).getCookieName());
+        }
+        tableModel.setSuggestions(trafficLearner.suggestions());
+        if (!selectedNames.isEmpty()) {
+            ListSelectionModel selection = table.getSelectionModel();
+            selection.setValueIsAdjusting(true);
+            for (int row = 0; row < tableModel.getRowCount(); row++) {
+                if (selectedNames.contains(tableModel.getSuggestion(row).getCookieName())) {
+                    int viewRow = table.convertRowIndexToView(row);
+                    if (viewRow >= 0) {
+                        selection.addSelectionInterval(viewRow, viewRow);
+                    }
+                }
+            }
+            selection.setValueIsAdjusting(false);
+        }
+        List<HeavyHitters.Entry> hosts = trafficLearner.busiestHosts();
+        String busiestHost = hosts.isEmpty() ? "-" : hosts.get(0).getKey();
+        statusLabel.setText(String.format("%d cookies observed, %d suggestions, busiest host: %s",
+                trafficLearner.observationCount(), tableModel.getRowCount(), busiestHost));
+    }
+
+    private void blockSelected() {
+        int[] selectedRows = table.getSelectedRows();
+        if (selectedRows.length == 0) {
+            JOptionPane.showMessageDialog(this,
+                    "Please select one or more cookies to block",
+                    "No Selection",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        for (int viewRow : selectedRows) {
+            String cookieName = tableModel.getSuggestion(table.convertRowIndexToModel(viewRow)).getCookieName();
+            if (!blocklistManager.isBlocked(cookieName)) {
+                blockCookie.accept(cookieName);
+            }
+        }
+        tableModel.fireTableDataChanged();
+    }
+
+    private void reset() {
+        int result = JOptionPane.showConfirmDialog(this,
+                "Are you sure you want to forget all learned cookies?",
+                "Confirm Reset",
+                JOptionPane.YES_NO_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+
+        if (result == JOptionPane.YES_OPTION) {
+            trafficLearner.reset();
+            refresh();
+        }
+    }
+
+    /**
+     * Table model over the current suggestions.
+     */
+    private class SuggestionTableModel extends AbstractTableModel {
+        private final String[] columns = {"Cookie Name", "Occurrences", "Total Bytes", "Avg Bytes", "Last Host", "Blocked"};
+        private List<TrafficLearner.Suggestion> suggestions = new ArrayList<>();
+
+        void setSuggestions(List<TrafficLearner.Suggestion> suggestions) {
+            this.suggestions = suggestions;
+            fireTableDataChanged();
+        }
+
+        TrafficLearner.Suggestion getSuggestion(int row) {
+            return suggestions.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return suggestions.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            switch (columnIndex) {
+                case 1:
+                case 2:
+                case 3:
+                    return Long.class;
+                case 5:
+                    return Boolean.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            TrafficLearner.Suggestion suggestion = suggestions.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return suggestion.getCookieName();
+                case 1:
+                    return suggestion.getOccurrences();
+                case 2:
+                    return suggestion.getTotalBytes();
+                case 3:
+                    return suggestion.getAverageBytes();
+                case 4:
+                    return suggestion.getLastHost();
+                case 5:
+                    return blocklistManager.isBlocked(suggestion.getCookieName());
+                default:
+                    return "";
+            }
+        }
+    }
+}
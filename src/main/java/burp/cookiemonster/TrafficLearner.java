@@ -0,0 +1,164 @@
+package burp.cookiemonster;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learns which cookies appear in traffic so they can be suggested for blocking.
+ * Cookie names are fed into fixed-size streaming structures (count-min sketches and
+ * top-K heavy hitters), so memory use stays constant however long Burp runs.
+ */
+public class TrafficLearner {
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+    private static final int TOP_K = 100;
+    private static final int MAX_NAME_LENGTH = 256;
+
+    private final CountMinSketch frequencySketch;
+    private final CountMinSketch bytesSketch;
+    private final HeavyHitters frequentCookies;
+    private final HeavyHitters largestCookies;
+    private final HeavyHitters busiestHosts;
+    private final AtomicLong observations;
+    private volatile boolean enabled;
+
+    public TrafficLearner() {
+        this.frequencySketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        this.bytesSketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        this.frequentCookies = new HeavyHitters(TOP_K);
+        this.largestCookies = new HeavyHitters(TOP_K);
+        this.busiestHosts = new HeavyHitters(TOP_K);
+        this.observations = new AtomicLong();
+    }
+
+    /**
+     * @return true if cookies seen in traffic are being recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start or stop recording cookies seen in traffic.
+     *
+     * @param enabled true to record cookies
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record a cookie seen in a request or response.
+     *
+     * @param host        The host the cookie was sent to or set by
+     * @param cookieName  The cookie name
+     * @param valueLength The length of the cookie value
+     */
+    public void observe(String host, String cookieName, int valueLength) {
+        if (cookieName == null || cookieName.isEmpty() || cookieName.length() > MAX_NAME_LENGTH) {
+            return;
+        }
+
+        // Serialized size of "name=value"
+        long bytes = cookieName.length() + 1L + Math.max(0, valueLength);
+
+        frequencySketch.add(cookieName, 1);
+        bytesSketch.add(cookieName, bytes);
+        frequentCookies.offer(cookieName, 1, host);
+        largestCookies.offer(cookieName, bytes, host);
+        if (host != null && host.length() <= MAX_NAME_LENGTH) {
+            busiestHosts.offer(host, 1, null);
+        }
+        observations.incrementAndGet();
+    }
+
+    /**
+     * Rank the most frequent and largest cookies seen so far.
+     *
+     * @return Suggestions ordered by total bytes contributed, largest first
+     */
+    public List<Suggestion> suggestions() {
+        Map<String, String> candidates = new LinkedHashMap<>();
+        for (HeavyHitters.Entry entry : largestCookies.top()) {
+            candidates.put(entry.getKey(), entry.getDetail());
+        }
+        for (HeavyHitters.Entry entry : frequentCookies.top()) {
+            candidates.putIfAbsent(entry.getKey(), entry.getDetail());
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(candidates.size());
+        for (Map.Entry<String, String> candidate : candidates.entrySet()) {
+            String name = candidate.getKey();
+            suggestions.add(new Suggestion(name, frequencySketch.estimate(name),
+                    bytesSketch.estimate(name), candidate.getValue()));
+        }
+        suggestions.sort((a, b) -> Long.compare(b.getTotalBytes(), a.getTotalBytes()));
+        return suggestions;
+    }
+
+    /**
+     * @return The hosts that sent or set the most cookies, busiest first
+     */
+    public List<HeavyHitters.Entry> busiestHosts() {
+        return busiestHosts.top();
+    }
+
+    /**
+     * @return The total number of cookies recorded
+     */
+    public long observationCount() {
+        return observations.get();
+    }
+
+    /**
+     * Forget everything learned so far.
+     */
+    public void reset() {
+        frequencySketch.clear();
+        bytesSketch.clear();
+        frequentCookies.clear();
+        largestCookies.clear();
+        busiestHosts.clear();
+        observations.set(0);
+    }
+
+    /**
+     * A cookie suggested for blocking, with estimated traffic statistics.
+     */
+    public static final class Suggestion {
+        private final String cookieName;
+        private final long occurrences;
+        private final long totalBytes;
+        private final String lastHost;
+
+        public Suggestion(String cookieName, long occurrences, long totalBytes, String lastHost) {
+            this.cookieName = cookieName;
+            this.occurrences = occurrences;
+            this.totalBytes = totalBytes;
+            this.lastHost = lastHost;
+        }
+
+        public String getCookieName() {
+            return cookieName;
+        }
+
+        public long getOccurrences() {
+            return occurrences;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getAverageBytes() {
+            return occurrences == 0 ? 0 : totalBytes / occurrences;
+        }
+
+        public String getLastHost() {
+            return lastHost;
+        }
+    }
+}
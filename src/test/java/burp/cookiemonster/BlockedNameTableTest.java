@@ -0,0 +1,131 @@
+package burp.cookiemonster;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks byte and character lookups in the blocked-name table, including the
+ * in-place header parser and collisions that wrap around the end of the table.
+ */
+class BlockedNameTableTest {
+
+    @Test
+    void byteSlicesAreLookedUpInPlace() {
+        BlockedNameTable table = BlockedNameTable.build(List.of("session", "ads"), false);
+        byte[] buffer = bytes("xxsessionyyads");
+
+        assertEquals("session", table.name(table.indexOf(buffer, 2, 7)));
+        assertEquals("ads", table.name(table.indexOf(buffer, 11, 3)));
+        assertEquals(-1, table.indexOf(buffer, 2, 6));
+        assertEquals(-1, table.indexOf(buffer, 1, 7));
+        assertEquals(-1, table.indexOf(buffer, 0, 0));
+        assertEquals(-1, BlockedNameTable.empty().indexOf(buffer, 2, 7));
+    }
+
+    @Test
+    void collectsBlockedNamesFromARawHeaderValue() {
+        BlockedNameTable table = BlockedNameTable.build(List.of("session", "ads", "flag"), false);
+        byte[] header = bytes("Cookie: keep=1;session=abc ;  ads = x=y; ;flag; other=ads");
+        List<String> found = new ArrayList<>();
+
+        assertEquals(3, table.collectBlockedInHeader(header, 8, header.length, found));
+        assertEquals(List.of("session", "ads", "flag"), found);
+
+        // Only the given range is parsed
+        found.clear();
+        assertEquals(1, table.collectBlockedInHeader(header, 8, 26, found));
+        assertEquals(List.of("session"), found);
+        assertEquals(0, BlockedNameTable.empty().collectBlockedInHeader(header, 8, header.length, found));
+    }
+
+    @Test
+    void ignoreCaseFoldsAsciiLettersOnly() {
+        BlockedNameTable table = BlockedNameTable.build(List.of("Session_ID", "café"), true);
+
+        assertTrue(table.contains("session_id"));
+        assertTrue(table.contains("SESSION_ID"));
+        assertTrue(table.contains("CAFé"));
+        assertFalse(table.contains("CAFÉ"));
+        assertTrue(table.contains(bytes("sEsSiOn_iD"), 0, 10));
+        assertFalse(table.contains("session-id"));
+
+        BlockedNameTable exact = BlockedNameTable.build(List.of("Session_ID"), false);
+        assertTrue(exact.contains("Session_ID"));
+        assertFalse(exact.contains("session_id"));
+        assertFalse(exact.contains(bytes("session_id"), 0, 10));
+    }
+
+    @Test
+    void duplicatesAreRemovedUnderTheTablesCaseRule() {
+        List<String> names = List.of("Token", "token", "TOKEN", "other");
+
+        BlockedNameTable folded = BlockedNameTable.build(names, true);
+        assertEquals(2, folded.size());
+        assertEquals("Token", folded.name(folded.indexOf("token", 0, 5)));
+
+        BlockedNameTable exact = BlockedNameTable.build(names, false);
+        assertEquals(4, exact.size());
+        assertEquals("TOKEN", exact.name(exact.indexOf("TOKEN", 0, 5)));
+    }
+
+    @Test
+    void collisionsWrapAroundTheEndOfTheTable() {
+        // Two names fill a four-slot table; pick three that all hash to the last slot
+        List<String> lastSlot = new ArrayList<>();
+        for (int i = 0; lastSlot.size() < 3; i++) {
+            String name = "n" + i;
+            if ((fnv(name) & 3) == 3) {
+                lastSlot.add(name);
+            }
+        }
+        BlockedNameTable table = BlockedNameTable.build(lastSlot.subList(0, 2), false);
+
+        for (String name : lastSlot.subList(0, 2)) {
+            assertEquals(name, table.name(table.indexOf(name, 0, name.length())));
+            assertEquals(name, table.name(table.indexOf(bytes(name), 0, name.length())));
+        }
+        String absent = lastSlot.get(2);
+        assertEquals(-1, table.indexOf(absent, 0, absent.length()));
+        assertEquals(-1, table.indexOf(bytes(absent), 0, absent.length()));
+    }
+
+    @Test
+    void byteAndCharLookupsAgree() {
+        List<String> names = List.of("session", "Ads", "café", "_ga", "x");
+        String[] probes = {"session", "SESSION", "ads", "Ads", "café", "CAFé", "cafe", "_GA", "X", "y", ""};
+
+        for (boolean ignoreCase : new boolean[]{false, true}) {
+            BlockedNameTable table = BlockedNameTable.build(names, ignoreCase);
+            for (String probe : probes) {
+                byte[] encoded = bytes("=" + probe + ";");
+                int byLength = probe.getBytes(StandardCharsets.UTF_8).length;
+                assertEquals(table.indexOf(probe, 0, probe.length()), table.indexOf(encoded, 1, byLength),
+                        probe + " with ignoreCase=" + ignoreCase);
+                assertEquals(table.contains(probe), table.containsAnyInHeader(probe + "=1"),
+                        probe + " in a header with ignoreCase=" + ignoreCase);
+            }
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a over UTF-16 units, as the table hashes ASCII names.
+     */
+    private static int fnv(String name) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x01000193;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,89 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails the build if the request paths that leave a request unchanged start allocating
+ * more than a small, fixed number of bytes per request. The budget covers the decision
+ * record kept for the Decisions tab and the Montoya stub calls themselves.
+ */
+class CookieFilterHandlerAllocationTest {
+    private static final int WARMUP_REQUESTS = 100_000;
+    private static final int MEASURED_REQUESTS = 200_000;
+    private static final long MAX_BYTES_PER_REQUEST = 160;
+
+    @BeforeAll
+    static void installFactory() {
+        MontoyaStubs.installObjectFactory();
+    }
+
+    @Test
+    void noMatchPathStaysWithinAllocationBudget() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        for (int i = 0; i < 50; i++) {
+            manager.addCookie("blocked" + i);
+        }
+        HttpRequestToBeSent request = MontoyaStubs.request("www.example.test", "/api/items",
+                "session=abc123", "lang=en", "theme=dark", "_ga=GA1.2.345.678", "csrf=token");
+
+        assertWithinBudget(manager, request);
+    }
+
+    @Test
+    void caseInsensitiveNoMatchPathStaysWithinAllocationBudget() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.setIgnoreCase(true);
+        for (int i = 0; i < 50; i++) {
+            manager.addCookie("Blocked" + i);
+        }
+        HttpRequestToBeSent request = MontoyaStubs.request("www.example.test", "/",
+                "SESSION=abc123", "Lang=en", "theme=dark");
+
+        assertWithinBudget(manager, request);
+    }
+
+    @Test
+    void domainSkipPathStaysWithinAllocationBudget() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("session");
+        manager.setFilterMode(DomainFilterMode.CUSTOM_DOMAINS);
+        manager.addCustomDomain("example.com");
+        manager.addCustomDomain("example.org");
+        HttpRequestToBeSent request = MontoyaStubs.request("www.unrelated.test", "/", "session=abc123");
+
+        assertWithinBudget(manager, request);
+    }
+
+    private static void assertWithinBudget(CookieBlocklistManager manager, HttpRequestToBeSent request) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean,
+                "per-thread allocation counters are not available on this JVM");
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported(), "allocation counters not supported");
+        allocation.setThreadAllocatedMemoryEnabled(true);
+
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, new DecisionLog());
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            handler.handleHttpRequestToBeSent(request);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocation.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            handler.handleHttpRequestToBeSent(request);
+        }
+        long after = allocation.getThreadAllocatedBytes(threadId);
+
+        long bytesPerRequest = (after - before) / MEASURED_REQUESTS;
+        assertTrue(bytesPerRequest <= MAX_BYTES_PER_REQUEST,
+                "handler allocated " + bytesPerRequest + " bytes per request, budget is " + MAX_BYTES_PER_REQUEST);
+    }
+}
@@ -0,0 +1,300 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers {@link CookieFilterHandler} from several threads while the configuration is
+ * swapped continuously, and checks that every request was filtered by exactly one
+ * configuration rather than a mix of two.
+ */
+class CookieFilterHandlerConcurrencyTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final long STRESS_MILLIS = 2000;
+    private static final int THROUGHPUT_REQUESTS_PER_THREAD = 200_000;
+    private static final double MIN_CONTENDED_FRACTION = 0.5;
+
+    // Config A: block "alpha" everywhere. Config B: block "beta" on target.test only.
+    private static final List<String> CONFIG_A_COOKIES = List.of("alpha");
+    private static final List<String> CONFIG_B_COOKIES = List.of("beta");
+    private static final List<String> CONFIG_B_DOMAINS = List.of("target.test");
+
+    @BeforeAll
+    static void installFactory() {
+        MontoyaStubs.installObjectFactory();
+    }
+
+    @Test
+    void eachRequestSeesOneConsistentConfigWhileConfigChanges() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        applyConfigA(manager);
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, new DecisionLog());
+
+        HttpRequestToBeSent target = MontoyaStubs.request("target.test", "/", "alpha=1", "beta=2", "keep=3");
+        HttpRequestToBeSent other = MontoyaStubs.request("www.other.test", "/", "alpha=1", "beta=2", "keep=3");
+
+        // Cookies left after filtering under each configuration
+        List<String> targetUnderA = List.of("beta", "keep");
+        List<String> targetUnderB = List.of("alpha", "keep");
+        List<String> otherUnderA = List.of("beta", "keep");
+        List<String> otherUnderB = List.of("alpha", "beta", "keep");
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong requests = new AtomicLong();
+        AtomicLong sawA = new AtomicLong();
+        AtomicLong sawB = new AtomicLong();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(THREADS + 1);
+
+        Thread mutator = new Thread(() -> {
+            try {
+                boolean useA = false;
+                while (!stop.get()) {
+                    if (useA) {
+                        applyConfigA(manager);
+                    } else {
+                        applyConfigB(manager);
+                    }
+                    useA = !useA;
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+        mutator.start();
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        List<String> left = cookiesLeft(handler.handleHttpRequestToBeSent(target));
+                        if (left.equals(targetUnderA)) {
+                            sawA.incrementAndGet();
+                        } else if (left.equals(targetUnderB)) {
+                            sawB.incrementAndGet();
+                        } else {
+                            failures.add("target.test left " + left);
+                        }
+
+                        left = cookiesLeft(handler.handleHttpRequestToBeSent(other));
+                        if (!left.equals(otherUnderA) && !left.equals(otherUnderB)) {
+                            failures.add("www.other.test left " + left);
+                        }
+                        requests.addAndGet(2);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+
+        Thread.sleep(STRESS_MILLIS);
+        stop.set(true);
+        assertTrue(done.await(30, TimeUnit.SECONDS), "stress threads did not finish");
+
+        assertTrue(failures.isEmpty(), "inconsistent filtering: " + first(failures) + " (" + failures.size() + " total)");
+        assertTrue(requests.get() > 0, "no requests were handled");
+        assertTrue(sawA.get() > 0 && sawB.get() > 0,
+                "expected both configurations to be observed, saw A=" + sawA + " B=" + sawB);
+    }
+
+    @Test
+    void uiStyleIncrementalMutationsOnlyProduceResultsOfRealConfigurations() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        HttpRequestToBeSent request = MontoyaStubs.request("a.example.test", "/", "c0=x", "c1=x", "c2=x", "c3=x");
+
+        // Every configuration the mutator passes through yields one of these (outcome, cookies left) pairs
+        List<String> all = List.of("c0", "c1", "c2", "c3");
+        Set<String> valid = Set.of(
+                DecisionOutcome.EMPTY_BLOCKLIST + " " + all,
+                DecisionOutcome.DOMAIN_NOT_LISTED + " " + all,
+                DecisionOutcome.REMOVED + " " + List.of("c1", "c2", "c3"),
+                DecisionOutcome.REMOVED + " " + List.of("c2", "c3"));
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong removals = new AtomicLong();
+        AtomicLong skippedByDomain = new AtomicLong();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(THREADS + 1);
+
+        // The same calls the Swing UI makes, one at a time; the comments give each resulting state
+        Thread mutator = new Thread(() -> {
+            try {
+                while (!stop.get()) {
+                    manager.addCookie("c0");                                // removes c0
+                    manager.addCookie("C1");                                // still only c0 (case-sensitive)
+                    manager.setIgnoreCase(true);                            // removes c0 and c1
+                    manager.setFilterMode(DomainFilterMode.CUSTOM_DOMAINS); // no domains: removes nothing
+                    manager.addCustomDomain("other.test");                  // no match: removes nothing
+                    manager.addCustomDomain("example.test");                // removes c0 and c1
+                    manager.clearCustomDomains();                           // removes nothing
+                    manager.setFilterMode(DomainFilterMode.ALL_DOMAINS);    // removes c0 and c1
+                    manager.setIgnoreCase(false);                           // removes c0
+                    manager.clear();                                        // empty blocklist
+                }
+            } catch (Throwable e) {
+                failures.add("mutator: " + e);
+            } finally {
+                done.countDown();
+            }
+        });
+        mutator.start();
+
+        for (int t = 0; t < THREADS; t++) {
+            // One handler and log per worker, so the last decision belongs to this worker's request
+            DecisionLog log = new DecisionLog(16);
+            CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+            new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        RequestToBeSentAction action = handler.handleHttpRequestToBeSent(request);
+                        List<FilterDecision> decisions = log.snapshot();
+                        DecisionOutcome outcome = decisions.get(decisions.size() - 1).getOutcome();
+                        String result = outcome + " " + cookiesLeft(action);
+                        if (!valid.contains(result)) {
+                            failures.add("no configuration yields " + result);
+                        } else if (outcome != DecisionOutcome.REMOVED && action.request() != request) {
+                            failures.add(outcome + " but the request was replaced");
+                        }
+                        if (outcome == DecisionOutcome.REMOVED) {
+                            removals.incrementAndGet();
+                        } else if (outcome == DecisionOutcome.DOMAIN_NOT_LISTED) {
+                            skippedByDomain.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        Thread.sleep(STRESS_MILLIS / 2);
+        stop.set(true);
+        assertTrue(done.await(30, TimeUnit.SECONDS), "stress threads did not finish");
+        assertTrue(failures.isEmpty(), "inconsistent filtering: " + first(failures) + " (" + failures.size() + " total)");
+        assertTrue(removals.get() > 0 && skippedByDomain.get() > 0,
+                "expected both removals and domain skips, saw " + removals + " and " + skippedByDomain);
+    }
+
+    @Test
+    void noMatchPathThroughputHoldsUpUnderContention() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        for (int i = 0; i < 50; i++) {
+            manager.addCookie("blocked" + i);
+        }
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, new DecisionLog());
+        HttpRequestToBeSent request = MontoyaStubs.request("www.example.test", "/",
+                "session=abc", "lang=en", "theme=dark", "_ga=GA1.2.3", "csrf=token");
+
+        // Warm up so the measurement is not dominated by the interpreter
+        for (int i = 0; i < 50_000; i++) {
+            handler.handleHttpRequestToBeSent(request);
+        }
+
+        // Compare against this machine's single-thread rate rather than a fixed figure
+        double baseline = requestsPerSecond(handler, request, 1);
+        double contended = requestsPerSecond(handler, request, THREADS);
+        assertTrue(contended >= MIN_CONTENDED_FRACTION * baseline,
+                String.format("no-match throughput with %d threads is %.0f req/s, below %.0f%% of the " +
+                        "single-thread %.0f req/s", THREADS, contended, MIN_CONTENDED_FRACTION * 100, baseline));
+    }
+
+    /**
+     * Run the no-match request on several threads at once and measure the combined rate.
+     */
+    private static double requestsPerSecond(CookieFilterHandler handler, HttpRequestToBeSent request, int threads)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < THROUGHPUT_REQUESTS_PER_THREAD; i++) {
+                        RequestToBeSentAction action = handler.handleHttpRequestToBeSent(request);
+                        if (action.request() != request) {
+                            failures.add("no-match request was modified");
+                            return;
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "throughput threads did not finish");
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        assertTrue(failures.isEmpty(), "failures: " + first(failures));
+        return threads * (double) THROUGHPUT_REQUESTS_PER_THREAD / seconds;
+    }
+
+    @Test
+    void decisionLogKeepsEveryRecentDecisionUnderContention() throws Exception {
+        DecisionLog log = new DecisionLog(1024);
+        int perThread = 10_000;
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    log.record("host", null, "", DecisionOutcome.NO_MATCH, i);
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        List<FilterDecision> snapshot = log.snapshot();
+        assertEquals((long) THREADS * perThread, log.totalRecorded());
+        assertEquals(log.capacity(), snapshot.size());
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertEquals(snapshot.get(i - 1).getSequence() + 1, snapshot.get(i).getSequence());
+        }
+    }
+
+    private static void applyConfigA(CookieBlocklistManager manager) {
+        manager.replaceConfig(CONFIG_A_COOKIES, false, Collections.emptyMap(), Collections.emptyList(),
+                DomainFilterMode.ALL_DOMAINS, Collections.emptyList());
+    }
+
+    private static void applyConfigB(CookieBlocklistManager manager) {
+        manager.replaceConfig(CONFIG_B_COOKIES, false, Collections.emptyMap(), Collections.emptyList(),
+                DomainFilterMode.CUSTOM_DOMAINS, CONFIG_B_DOMAINS);
+    }
+
+    private static List<String> cookiesLeft(RequestToBeSentAction action) {
+        return MontoyaStubs.fake(action.request()).cookieNames();
+    }
+
+    private static String first(ConcurrentLinkedQueue<String> failures) {
+        String failure = failures.peek();
+        return failure == null ? "none" : failure;
+    }
+}
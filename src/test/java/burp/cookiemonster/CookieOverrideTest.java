@@ -0,0 +1,142 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that removals, replacements and additions land in one rewritten Cookie header.
+ */
+class CookieOverrideTest {
+
+    @BeforeAll
+    static void installFactory() {
+        MontoyaStubs.installObjectFactory();
+    }
+
+    @Test
+    void removesReplacesAndAddsInOnePass() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("tracker");
+        manager.putOverride("session", "tester", OverrideType.REPLACE, null);
+        manager.putOverride("lang", "en", OverrideType.ADD, "app.test");
+        manager.putOverride("beta", "on", OverrideType.ADD, "app.test");
+        DecisionLog log = new DecisionLog();
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+
+        MontoyaStubs.FakeRequest result = MontoyaStubs.fake(handler.handleHttpRequestToBeSent(
+                MontoyaStubs.request("app.test", "/", "tracker=1", "session=abc", "lang=de", "keep=2")).request());
+
+        assertEquals(List.of("session=tester", "lang=en", "keep=2", "beta=on"), result.cookiePairs());
+        assertEquals(1, result.cookieHeaderCount());
+        FilterDecision decision = last(log);
+        assertEquals(DecisionOutcome.REMOVED, decision.getOutcome());
+        assertEquals("tracker, session (replaced), lang (replaced), beta (added)", decision.getRemovedCookies());
+    }
+
+    @Test
+    void replaceOnlyTouchesCookiesThatArePresent() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.putOverride("session", "tester", OverrideType.REPLACE, null);
+        DecisionLog log = new DecisionLog();
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+
+        HttpRequestToBeSent request = MontoyaStubs.request("app.test", "/", "other=1");
+        assertSame(request, handler.handleHttpRequestToBeSent(request).request());
+        assertEquals(DecisionOutcome.NO_MATCH, last(log).getOutcome());
+
+        HttpRequestToBeSent noCookies = MontoyaStubs.request("app.test", "/");
+        assertSame(noCookies, handler.handleHttpRequestToBeSent(noCookies).request());
+        assertEquals(DecisionOutcome.NO_COOKIES, last(log).getOutcome());
+    }
+
+    @Test
+    void addCreatesTheHeaderAndLeavesMatchingValuesAlone() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.putOverride("lang", "en", OverrideType.ADD, "app.test");
+        DecisionLog log = new DecisionLog();
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+
+        RequestToBeSentAction added = handler.handleHttpRequestToBeSent(MontoyaStubs.request("app.test", "/"));
+        assertEquals(List.of("lang=en"), MontoyaStubs.fake(added.request()).cookiePairs());
+        assertEquals(DecisionOutcome.OVERRIDDEN, last(log).getOutcome());
+
+        HttpRequestToBeSent alreadySet = MontoyaStubs.request("app.test", "/", "lang=en", "x=1");
+        assertSame(alreadySet, handler.handleHttpRequestToBeSent(alreadySet).request());
+    }
+
+    @Test
+    void overridesOnlyApplyToTheirDomain() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.putOverride("session", "other-user", OverrideType.ADD, "App.Test/");
+        manager.putOverride("lang", "en", OverrideType.REPLACE, "app.test");
+        DecisionLog log = new DecisionLog();
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+
+        RequestToBeSentAction subdomain = handler.handleHttpRequestToBeSent(
+                MontoyaStubs.request("api.app.test", "/", "lang=de"));
+        assertEquals(List.of("lang=en", "session=other-user"), MontoyaStubs.fake(subdomain.request()).cookiePairs());
+
+        // Neither the forced session nor the replacement reaches another host, even in All Domains mode
+        HttpRequestToBeSent elsewhere = MontoyaStubs.request("tracker.test", "/", "lang=de");
+        assertSame(elsewhere, handler.handleHttpRequestToBeSent(elsewhere).request());
+        assertEquals(DecisionOutcome.NO_MATCH, last(log).getOutcome());
+        HttpRequestToBeSent noCookies = MontoyaStubs.request("notapp.test", "/");
+        assertSame(noCookies, handler.handleHttpRequestToBeSent(noCookies).request());
+        assertEquals(DecisionOutcome.NO_COOKIES, last(log).getOutcome());
+    }
+
+    @Test
+    void addRequiresAWellFormedDomain() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        assertFalse(manager.putOverride("lang", "en", OverrideType.ADD, null));
+        assertFalse(manager.putOverride("lang", "en", OverrideType.ADD, "  "));
+        assertFalse(manager.putOverride("lang", "en", OverrideType.ADD, "/api/"));
+        assertFalse(manager.putOverride("lang", "en", OverrideType.ADD, "app.test/api/"));
+        assertFalse(manager.putOverride("lang", "en", OverrideType.REPLACE, "app;test"));
+        assertEquals(0, manager.getOverrides().size());
+
+        assertTrue(manager.putOverride("lang", "en", OverrideType.REPLACE, ""));
+        assertNull(manager.getOverrides().get(0).getDomain());
+    }
+
+    @Test
+    void overridesFollowTheDomainFilterAndCaseSetting() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.setIgnoreCase(true);
+        manager.putOverride("Session", "tester", OverrideType.REPLACE, null);
+        manager.setFilterMode(DomainFilterMode.CUSTOM_DOMAINS);
+        manager.addCustomDomain("app.test");
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, new DecisionLog());
+
+        RequestToBeSentAction inList = handler.handleHttpRequestToBeSent(
+                MontoyaStubs.request("www.app.test", "/", "SESSION=abc"));
+        assertEquals(List.of("Session=tester"), MontoyaStubs.fake(inList.request()).cookiePairs());
+
+        HttpRequestToBeSent elsewhere = MontoyaStubs.request("other.test", "/", "SESSION=abc");
+        assertSame(elsewhere, handler.handleHttpRequestToBeSent(elsewhere).request());
+    }
+
+    @Test
+    void rejectsValuesThatWouldBreakTheHeader() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        assertFalse(manager.putOverride("a;b", "1", OverrideType.ADD, "app.test"));
+        assertFalse(manager.putOverride("name", "x; admin=1", OverrideType.ADD, "app.test"));
+        assertFalse(manager.putOverride("na me", "1", OverrideType.REPLACE, null));
+        assertEquals(0, manager.getOverrides().size());
+    }
+
+    private static FilterDecision last(DecisionLog log) {
+        List<FilterDecision> decisions = log.snapshot();
+        return decisions.get(decisions.size() - 1);
+    }
+}
@@ -0,0 +1,67 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.http.message.requests.HttpRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the history scanner's raw header parser over captured requests.
+ */
+class HistoryScannerTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    @Test
+    void parsesCookieHeadersFromRawRequestBytes() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("session");
+        manager.addCookie("ads");
+        manager.addCookie("tracker");
+
+        List<HttpRequest> history = List.of(
+                // 1: CRLF line endings, blocked and kept cookies
+                MontoyaStubs.rawRequest("app.test",
+                        "GET /a HTTP/1.1\r\nHost: app.test\r\nCookie: keep=1; session=abc\r\n\r\n"),
+                // 2: LF only, header name in any case
+                MontoyaStubs.rawRequest("app.test",
+                        "GET /b HTTP/1.1\nHost: app.test\ncOOKIE:ads=1\n\n"),
+                // 3: repeated Cookie headers are all read
+                MontoyaStubs.rawRequest("app.test",
+                        "GET /c HTTP/1.1\r\nCookie: keep=1\r\nAccept: */*\r\ncookie: tracker=2; ads=3\r\n\r\n"),
+                // 4: Cookie text after the blank line is body, never a header
+                MontoyaStubs.rawRequest("app.test",
+                        "POST /d HTTP/1.1\r\nHost: app.test\r\nCookie: keep=1\r\n\r\nCookie: session=abc\r\n"),
+                // 5: LF body after the blank line, and a header whose name only ends in Cookie
+                MontoyaStubs.rawRequest("app.test",
+                        "GET /e HTTP/1.1\nCookie: keep=1\nX-Cookie: session=1\n\nCookie: ads=1"),
+                // 6: a header that merely starts like Cookie
+                MontoyaStubs.rawRequest("app.test",
+                        "GET /f HTTP/1.1\r\nCookies: session=1\r\nSet-Cookie: ads=1\r\n\r\n"));
+
+        HistoryScanner scanner = new HistoryScanner(manager, MontoyaStubs.api(history));
+        assertTrue(scanner.start(true, false));
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (scanner.isRunning()) {
+            assertTrue(System.currentTimeMillis() < deadline, "scan did not finish");
+            Thread.sleep(10);
+        }
+
+        List<HistoryScanner.ScanHit> hits = new ArrayList<>();
+        scanner.drainResults(hits, Integer.MAX_VALUE);
+        hits.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+
+        assertEquals(history.size(), scanner.processedCount());
+        assertEquals(3, hits.size());
+        assertEquals(1, hits.get(0).getId());
+        assertEquals("session", hits.get(0).getCookies());
+        assertEquals(2, hits.get(1).getId());
+        assertEquals("ads", hits.get(1).getCookies());
+        assertEquals(3, hits.get(2).getId());
+        assertEquals("tracker, ads", hits.get(2).getCookies());
+        assertEquals("https://app.test/c", hits.get(2).getUrl());
+    }
+}
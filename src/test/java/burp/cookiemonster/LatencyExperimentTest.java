@@ -0,0 +1,251 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the A/B latency experiment against a local mock server that answers slowly
+ * whenever the blocked cookie is present.
+ */
+class LatencyExperimentTest {
+    private static final long SLOW_MILLIS = 40;
+    private static final int SLOW_BYTES = 2000;
+    private static final int FAST_BYTES = 500;
+    private static final int SAMPLES = 20;
+
+    private HttpServer server;
+    private final AtomicInteger served = new AtomicInteger();
+    private final AtomicInteger markersSeen = new AtomicInteger();
+    private final AtomicInteger overridesSeen = new AtomicInteger();
+
+    @BeforeAll
+    static void installFactory() {
+        MontoyaStubs.installObjectFactory();
+    }
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            served.incrementAndGet();
+            if (exchange.getRequestHeaders().containsKey(LatencyExperiment.MARKER_HEADER)) {
+                markersSeen.incrementAndGet();
+            }
+            String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            if (cookie != null && cookie.contains("lang=en")) {
+                overridesSeen.incrementAndGet();
+            }
+            boolean heavy = cookie != null && cookie.contains("heavy=");
+            if (heavy) {
+                try {
+                    Thread.sleep(SLOW_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = new byte[heavy ? SLOW_BYTES : FAST_BYTES];
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void percentilesUseNearestRank() {
+        LatencyReservoir reservoir = new LatencyReservoir(1000);
+        for (int i = 100; i >= 1; i--) {
+            reservoir.add(i);
+        }
+        assertArrayEquals(new long[]{1, 50, 90, 99, 100}, reservoir.percentiles(0, 50, 90, 99, 100));
+        assertEquals(50.5, reservoir.mean(), 1e-9);
+    }
+
+    @Test
+    void reservoirKeepsAFixedSampleOfALongStream() {
+        LatencyReservoir reservoir = new LatencyReservoir(256);
+        for (int i = 0; i < 100_000; i++) {
+            reservoir.add(i % 1000);
+        }
+        assertEquals(100_000, reservoir.count());
+        long median = reservoir.percentiles(50)[0];
+        assertTrue(median > 350 && median < 650, "median estimate " + median + " is far from 500");
+    }
+
+    @Test
+    void measuresTheCostOfBlockedCookiesAgainstAMockServer() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("heavy");
+        DecisionLog decisionLog = new DecisionLog();
+
+        LatencyExperiment experiment = runSamples(manager, decisionLog, SAMPLES);
+
+        List<LatencyExperiment.Comparison> comparisons = experiment.comparisons();
+        assertEquals(1, comparisons.size());
+        LatencyExperiment.Comparison comparison = comparisons.get(0);
+        assertEquals("127.0.0.1", comparison.getHost());
+        assertEquals("heavy", comparison.getCookies());
+        assertEquals(SAMPLES, comparison.getSamples());
+        assertEquals(0, experiment.failedCount());
+
+        long deltaMedianMillis = comparison.deltaPercentiles(50)[0] / 1_000_000;
+        assertTrue(deltaMedianMillis >= SLOW_MILLIS / 2, "median delta " + deltaMedianMillis + " ms");
+        assertEquals(FAST_BYTES, comparison.getMeanStrippedBytes(), 1e-9);
+        assertEquals(SLOW_BYTES, comparison.getMeanOriginalBytes(), 1e-9);
+
+        // Both variants reached the server without the marker, and were not logged as user traffic
+        assertEquals(2 * SAMPLES, served.get());
+        assertEquals(0, markersSeen.get());
+        assertEquals(SAMPLES, decisionLog.totalRecorded());
+    }
+
+    @Test
+    void overridesApplyToBothVariantsAndStayOutOfTheGrouping() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("heavy");
+        manager.putOverride("lang", "en", OverrideType.ADD, "127.0.0.1");
+        int samples = 5;
+
+        LatencyExperiment experiment = runSamples(manager, new DecisionLog(), samples);
+
+        List<LatencyExperiment.Comparison> comparisons = experiment.comparisons();
+        assertEquals(1, comparisons.size());
+        assertEquals("heavy", comparisons.get(0).getCookies());
+        assertEquals(samples, comparisons.get(0).getSamples());
+        assertEquals(2 * samples, overridesSeen.get());
+    }
+
+    @Test
+    void forgedMarkerDoesNotBypassFiltering() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("heavy");
+        DecisionLog decisionLog = new DecisionLog();
+        LatencyExperiment experiment = new LatencyExperiment(MontoyaStubs.api());
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, decisionLog, experiment);
+
+        for (boolean enabled : new boolean[]{false, true}) {
+            experiment.setEnabled(enabled);
+            experiment.setSampleRate(0);
+            HttpRequest forged = MontoyaStubs.request("127.0.0.1", "/page", "heavy=1", "keep=2")
+                    .withAddedHeader(LatencyExperiment.MARKER_HEADER, "stripped");
+            HttpRequest sent = handler.handleHttpRequestToBeSent((HttpRequestToBeSent) forged).request();
+            assertEquals(List.of("keep"), MontoyaStubs.fake(sent).cookieNames(), "experiment enabled: " + enabled);
+        }
+        assertEquals(2, decisionLog.totalRecorded());
+        experiment.shutdown();
+    }
+
+    @Test
+    void turningTheExperimentOffMidPairNeitherLeaksTheMarkerNorRecordsThePair() throws Exception {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("heavy");
+        HttpClient client = HttpClient.newHttpClient();
+        int port = server.getAddress().getPort();
+
+        // The user turns the experiment off while the first variant is in flight
+        AtomicReference<CookieFilterHandler> handler = new AtomicReference<>();
+        AtomicReference<LatencyExperiment> experiment = new AtomicReference<>();
+        experiment.set(new LatencyExperiment(MontoyaStubs.api(request -> {
+            experiment.get().setEnabled(false);
+            HttpRequest sent = handler.get().handleHttpRequestToBeSent((HttpRequestToBeSent) request).request();
+            return send(client, port, MontoyaStubs.fake(sent));
+        })));
+        handler.set(MontoyaStubs.handler(manager, new DecisionLog(), experiment.get()));
+        experiment.get().setEnabled(true);
+        experiment.get().setSampleRate(1.0);
+
+        handler.get().handleHttpRequestToBeSent(MontoyaStubs.request("127.0.0.1", "/page", "heavy=1", "keep=1"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (served.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        experiment.get().shutdown();
+        assertEquals(2, served.get());
+        assertEquals(0, markersSeen.get());
+        assertEquals(0, samples(experiment.get()));
+    }
+
+    /**
+     * Send requests carrying the blocked cookie through the handler with every one sampled,
+     * and wait until all comparisons are complete.
+     */
+    private LatencyExperiment runSamples(CookieBlocklistManager manager, DecisionLog decisionLog, int count)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        int port = server.getAddress().getPort();
+
+        // Emulate Burp: requests sent by the extension pass through the handler again
+        AtomicReference<CookieFilterHandler> handler = new AtomicReference<>();
+        LatencyExperiment experiment = new LatencyExperiment(MontoyaStubs.api(request -> {
+            HttpRequest sent = handler.get().handleHttpRequestToBeSent((HttpRequestToBeSent) request).request();
+            return send(client, port, MontoyaStubs.fake(sent));
+        }));
+        handler.set(MontoyaStubs.handler(manager, decisionLog, experiment));
+        experiment.setEnabled(true);
+        experiment.setSampleRate(1.0);
+
+        for (int i = 0; i < count; i++) {
+            handler.get().handleHttpRequestToBeSent(
+                    MontoyaStubs.request("127.0.0.1", "/page", "heavy=" + "x".repeat(100), "keep=1"));
+        }
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (samples(experiment) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        experiment.shutdown();
+        return experiment;
+    }
+
+    private static long samples(LatencyExperiment experiment) {
+        long total = 0;
+        for (LatencyExperiment.Comparison comparison : experiment.comparisons()) {
+            total += comparison.getSamples();
+        }
+        return total;
+    }
+
+    private static HttpRequestResponse send(HttpClient client, int port, MontoyaStubs.FakeRequest request) {
+        try {
+            java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + port + "/page"));
+            if (!request.cookiePairs().isEmpty()) {
+                builder.header("Cookie", String.join("; ", request.cookiePairs()));
+            }
+            String marker = request.headerValue(LatencyExperiment.MARKER_HEADER);
+            if (marker != null) {
+                builder.header(LatencyExperiment.MARKER_HEADER, marker);
+            }
+            java.net.http.HttpResponse<byte[]> response = client.send(builder.build(),
+                    java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+            return MontoyaStubs.requestResponse(response.body().length);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
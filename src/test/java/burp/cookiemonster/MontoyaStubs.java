@@ -0,0 +1,508 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.MontoyaApi;
+import burp.api.montoya.core.ByteArray;
+import burp.api.montoya.core.ToolSource;
+import burp.api.montoya.core.ToolType;
+import burp.api.montoya.http.Http;
+import burp.api.montoya.http.HttpService;
+import burp.api.montoya.http.handler.HttpRequestToBeSent;
+import burp.api.montoya.http.handler.RequestToBeSentAction;
+import burp.api.montoya.http.message.HttpHeader;
+import burp.api.montoya.http.message.HttpRequestResponse;
+import burp.api.montoya.http.message.params.HttpParameterType;
+import burp.api.montoya.http.message.params.ParsedHttpParameter;
+import burp.api.montoya.http.message.requests.HttpRequest;
+import burp.api.montoya.http.message.responses.HttpResponse;
+import burp.api.montoya.internal.MontoyaObjectFactory;
+import burp.api.montoya.internal.ObjectFactoryLocator;
+import burp.api.montoya.logging.Logging;
+import burp.api.montoya.proxy.ProxyHttpRequestResponse;
+import burp.api.montoya.sitemap.SiteMap;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Minimal stand-ins for the Montoya API so handlers can run outside Burp.
+ * Everything a test request hands to the handler is created up front, so the
+ * stubs themselves add next to nothing to allocation measurements.
+ */
+final class MontoyaStubs {
+
+    private MontoyaStubs() {
+    }
+
+    /**
+     * Install an object factory so static helpers such as
+     * {@link RequestToBeSentAction#continueWith} work without Burp.
+     */
+    static void installObjectFactory() {
+        ObjectFactoryLocator.FACTORY = stub(MontoyaObjectFactory.class, (proxy, method, args) -> {
+            if (method.getName().equals("requestResult")) {
+                Object request = args[0];
+                if (Proxy.isProxyClass(request.getClass())
+                        && Proxy.getInvocationHandler(request) instanceof FakeRequest) {
+                    return ((FakeRequest) Proxy.getInvocationHandler(request)).action;
+                }
+                return actionFor(request);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * @return An API whose logging discards everything and whose other services are unavailable
+     */
+    static MontoyaApi api() {
+        return api(request -> {
+            throw new UnsupportedOperationException("sendRequest");
+        });
+    }
+
+    /**
+     * @param sender Answers {@code api.http().sendRequest(request)}
+     * @return An API whose logging discards everything and that sends requests through {@code sender}
+     */
+    static MontoyaApi api(Function<HttpRequest, HttpRequestResponse> sender) {
+        Logging logging = stub(Logging.class, (proxy, method, args) -> null);
+        Http http = stub(Http.class, (proxy, method, args) -> {
+            if (method.getName().equals("sendRequest") && args.length == 1) {
+                return sender.apply((HttpRequest) args[0]);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return stub(MontoyaApi.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "logging":
+                    return logging;
+                case "http":
+                    return http;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * @param proxyHistory Requests answered by {@code api.proxy().history()}, in order; the site map is empty
+     * @return An API whose logging discards everything and that serves the given Proxy history
+     */
+    static MontoyaApi api(List<HttpRequest> proxyHistory) {
+        MontoyaApi base = api();
+        List<ProxyHttpRequestResponse> items = new ArrayList<>();
+        for (int i = 0; i < proxyHistory.size(); i++) {
+            int id = i + 1;
+            HttpRequest request = proxyHistory.get(i);
+            items.add(stub(ProxyHttpRequestResponse.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "id":
+                        return id;
+                    case "request":
+                    case "finalRequest":
+                        return request;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }));
+        }
+        burp.api.montoya.proxy.Proxy proxyService = stub(burp.api.montoya.proxy.Proxy.class, (proxy, method, args) -> {
+            if (method.getName().equals("history") && (args == null || args.length == 0)) {
+                return items;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        SiteMap siteMap = stub(SiteMap.class, (proxy, method, args) -> {
+            if (method.getName().equals("requestResponses")) {
+                return Collections.emptyList();
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return stub(MontoyaApi.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "proxy":
+                    return proxyService;
+                case "siteMap":
+                    return siteMap;
+                default:
+                    return method.invoke(base, args);
+            }
+        });
+    }
+
+    /**
+     * Create a captured request from its raw bytes, as Proxy history holds it.
+     * Only what the history scanner reads is available.
+     *
+     * @param host The target host
+     * @param raw  The request line, headers, blank line and body, with CRLF or LF line endings
+     * @return A request over the raw bytes
+     */
+    static HttpRequest rawRequest(String host, String raw) {
+        byte[] bytes = raw.getBytes(StandardCharsets.UTF_8);
+        int crlf = raw.indexOf("\r\n\r\n");
+        int lf = raw.indexOf("\n\n");
+        int bodyOffset = crlf >= 0 && (lf < 0 || crlf < lf) ? crlf + 4 : lf >= 0 ? lf + 2 : bytes.length;
+        String requestLine = raw.substring(0, raw.indexOf('\n')).trim();
+        String[] parts = requestLine.split(" ");
+        HttpService service = stub(HttpService.class, (proxy, method, args) -> {
+            if (method.getName().equals("host")) {
+                return host;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        ByteArray array = byteArray(bytes);
+        return stub(HttpRequest.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "bodyOffset":
+                    return bodyOffset;
+                case "toByteArray":
+                    return array;
+                case "method":
+                    return parts[0];
+                case "path":
+                    return parts[1];
+                case "url":
+                    return "https://" + host + parts[1];
+                case "httpService":
+                    return service;
+                case "isInScope":
+                    return true;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ByteArray byteArray(byte[] bytes) {
+        return stub(ByteArray.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getBytes":
+                    return bytes.clone();
+                case "length":
+                    return bytes.length;
+                case "subArray":
+                    return byteArray(Arrays.copyOfRange(bytes, (Integer) args[0], (Integer) args[1]));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Create a filter handler with learning and the experiment switched off.
+     *
+     * @param manager The blocklist to filter with
+     * @param log     Receives the filter decisions
+     * @return A handler whose collaborators do no work of their own
+     */
+    static CookieFilterHandler handler(CookieBlocklistManager manager, DecisionLog log) {
+        return handler(manager, log, new LatencyExperiment(api()));
+    }
+
+    /**
+     * @param experiment The experiment the handler samples into
+     * @return A handler with learning switched off
+     */
+    static CookieFilterHandler handler(CookieBlocklistManager manager, DecisionLog log, LatencyExperiment experiment) {
+        return new CookieFilterHandler(manager, log, new TrafficLearner(), experiment, api());
+    }
+
+    /**
+     * @param bytes The size of the response
+     * @return A request/response pair whose response is {@code bytes} long
+     */
+    static HttpRequestResponse requestResponse(int bytes) {
+        ByteArray array = stub(ByteArray.class, (proxy, method, args) -> {
+            if (method.getName().equals("length")) {
+                return bytes;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        HttpResponse response = stub(HttpResponse.class, (proxy, method, args) -> {
+            if (method.getName().equals("toByteArray")) {
+                return array;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        return stub(HttpRequestResponse.class, (proxy, method, args) -> {
+            if (method.getName().equals("response")) {
+                return response;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * Create a request to be sent.
+     *
+     * @param host    The target host
+     * @param path    The request path
+     * @param cookies Cookies as "name=value" strings, in header order
+     * @return A request backed by a {@link FakeRequest}
+     */
+    static HttpRequestToBeSent request(String host, String path, String... cookies) {
+        return new FakeRequest(host, path, parseCookies(List.of(cookies)), Collections.emptyList()).proxy;
+    }
+
+    private static List<String[]> parseCookies(List<String> cookies) {
+        List<String[]> pairs = new ArrayList<>();
+        for (String cookie : cookies) {
+            int separator = cookie.indexOf('=');
+            pairs.add(new String[]{cookie.substring(0, separator).trim(), cookie.substring(separator + 1).trim()});
+        }
+        return pairs;
+    }
+
+    /**
+     * Get the fake behind a request returned by {@link #request} or by a handler.
+     */
+    static FakeRequest fake(Object request) {
+        return (FakeRequest) Proxy.getInvocationHandler(request);
+    }
+
+    static <T> T stub(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MontoyaStubs.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return objectMethod(proxy, method, args);
+                    }
+                    return handler.invoke(proxy, method, args);
+                }));
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return proxy.getClass().getSimpleName();
+        }
+    }
+
+    private static RequestToBeSentAction actionFor(Object request) {
+        return stub(RequestToBeSentAction.class, (proxy, method, args) -> {
+            if (method.getName().equals("request")) {
+                return request;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static HttpHeader header(String name, String value) {
+        return stub(HttpHeader.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "name":
+                    return name;
+                case "value":
+                    return value;
+                default:
+                    return name + ": " + value;
+            }
+        });
+    }
+
+    private static ParsedHttpParameter cookieParameter(String name, String value) {
+        return stub(ParsedHttpParameter.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "name":
+                    return name;
+                case "value":
+                    return value;
+                case "type":
+                    return HttpParameterType.COOKIE;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * Immutable fake request. Modifications return new fakes, like Burp's own requests.
+     */
+    static final class FakeRequest implements InvocationHandler {
+        private final String host;
+        private final String path;
+        private final List<String[]> cookies;
+        private final List<String[]> otherHeaders;
+        private final List<HttpHeader> headers;
+        private final List<ParsedHttpParameter> cookieParameters;
+        private final HttpService service;
+        private final ToolSource toolSource;
+        private final HttpRequestToBeSent proxy;
+        private final RequestToBeSentAction action;
+
+        private FakeRequest(String host, String path, List<String[]> cookies, List<String[]> otherHeaders) {
+            this.host = host;
+            this.path = path;
+            this.cookies = cookies;
+            this.otherHeaders = otherHeaders;
+
+            List<HttpHeader> headerList = new ArrayList<>();
+            headerList.add(header("Host", host));
+            List<ParsedHttpParameter> parameters = new ArrayList<>();
+            if (!cookies.isEmpty()) {
+                StringBuilder value = new StringBuilder();
+                for (String[] cookie : cookies) {
+                    if (value.length() > 0) {
+                        value.append("; ");
+                    }
+                    value.append(cookie[0]).append('=').append(cookie[1]);
+                    parameters.add(cookieParameter(cookie[0], cookie[1]));
+                }
+                headerList.add(header("Cookie", value.toString()));
+            }
+            for (String[] other : otherHeaders) {
+                headerList.add(header(other[0], other[1]));
+            }
+            this.headers = Collections.unmodifiableList(headerList);
+            this.cookieParameters = Collections.unmodifiableList(parameters);
+            this.service = stub(HttpService.class, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "host":
+                        return host;
+                    case "port":
+                        return 443;
+                    case "secure":
+                        return true;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            this.toolSource = stub(ToolSource.class, (p, method, args) -> {
+                if (method.getName().equals("toolType")) {
+                    return ToolType.PROXY;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+            this.proxy = (HttpRequestToBeSent) Proxy.newProxyInstance(MontoyaStubs.class.getClassLoader(),
+                    new Class<?>[]{HttpRequestToBeSent.class}, this);
+            this.action = actionFor(proxy);
+        }
+
+        /**
+         * @return The cookie names left in the request, in header order
+         */
+        List<String> cookieNames() {
+            List<String> names = new ArrayList<>();
+            for (String[] cookie : cookies) {
+                names.add(cookie[0]);
+            }
+            return names;
+        }
+
+        /**
+         * @return The cookies left in the request as "name=value" strings, in header order
+         */
+        List<String> cookiePairs() {
+            List<String> pairs = new ArrayList<>();
+            for (String[] cookie : cookies) {
+                pairs.add(cookie[0] + "=" + cookie[1]);
+            }
+            return pairs;
+        }
+
+        /**
+         * @return The value of a header other than Cookie, or null if the request lacks it
+         */
+        String headerValue(String name) {
+            for (String[] other : otherHeaders) {
+                if (other[0].equalsIgnoreCase(name)) {
+                    return other[1];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return The number of Cookie headers in the request
+         */
+        int cookieHeaderCount() {
+            int count = 0;
+            for (HttpHeader header : headers) {
+                if (header.name().equalsIgnoreCase("Cookie")) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args);
+            }
+            switch (method.getName()) {
+                case "headers":
+                    return headers;
+                case "httpService":
+                    return service;
+                case "toolSource":
+                    return toolSource;
+                case "isInScope":
+                    return false;
+                case "messageId":
+                    return 1;
+                case "path":
+                    return path;
+                case "url":
+                    return "https://" + host + path;
+                case "method":
+                    return "GET";
+                case "parameters":
+                    return args != null && args[0] != HttpParameterType.COOKIE
+                            ? Collections.emptyList() : cookieParameters;
+                case "withUpdatedHeader":
+                    requireCookieHeader(args[0]);
+                    return with(parseCookies(List.of(((String) args[1]).split(";"))), otherHeaders);
+                case "withRemovedHeaders":
+                    for (Object header : args[0] instanceof List ? (List<?>) args[0] : List.of((Object[]) args[0])) {
+                        requireCookieHeader(((HttpHeader) header).name());
+                    }
+                    return with(new ArrayList<>(), otherHeaders);
+                case "withAddedHeader":
+                    if (isCookieHeader(args[0])) {
+                        List<String[]> added = new ArrayList<>(cookies);
+                        added.addAll(parseCookies(List.of(((String) args[1]).split(";"))));
+                        return with(added, otherHeaders);
+                    }
+                    List<String[]> withHeader = new ArrayList<>(otherHeaders);
+                    withHeader.add(new String[]{(String) args[0], (String) args[1]});
+                    return with(cookies, withHeader);
+                case "withRemovedHeader":
+                    List<String[]> remaining = new ArrayList<>();
+                    for (String[] other : otherHeaders) {
+                        if (!other[0].equalsIgnoreCase((String) args[0])) {
+                            remaining.add(other);
+                        }
+                    }
+                    return with(isCookieHeader(args[0]) ? new ArrayList<>() : cookies, remaining);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private HttpRequestToBeSent with(List<String[]> newCookies, List<String[]> newHeaders) {
+            return new FakeRequest(host, path, newCookies, newHeaders).proxy;
+        }
+
+        private static boolean isCookieHeader(Object name) {
+            return "Cookie".equalsIgnoreCase((String) name);
+        }
+
+        private static void requireCookieHeader(Object name) {
+            if (!isCookieHeader(name)) {
+                throw new UnsupportedOperationException("only Cookie headers are modelled, got " + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package burp.cookiemonster;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks segment-wise path-prefix matching and how the handler applies path conditions.
+ */
+class PathRuleTableTest {
+
+    @BeforeAll
+    static void installFactory() {
+        MontoyaStubs.installObjectFactory();
+    }
+
+    @Test
+    void prefixesMatchWholeSegmentsOnly() {
+        FilterSnapshot config = compile(List.of("session"), Map.of("session", List.of("/api/", "/graphql")));
+        PathRuleTable rules = config.getPathRules();
+        int id = config.getBlockedNames().indexOf("session", 0, "session".length());
+
+        assertTrue(rules.allows(id, "app.test", "/api"));
+        assertTrue(rules.allows(id, "app.test", "/api/v1/items"));
+        assertTrue(rules.allows(id, "app.test", "//api//v1"));
+        assertTrue(rules.allows(id, "app.test", "/graphql?query=x"));
+        assertFalse(rules.allows(id, "app.test", "/apidocs"));
+        assertFalse(rules.allows(id, "app.test", "/static/api/"));
+        assertFalse(rules.allows(id, "app.test", "/"));
+        assertFalse(rules.allows(id, "app.test", "/login?next=/api/"));
+    }
+
+    @Test
+    void domainScopedConditionsCoverSubdomainsOnly() {
+        FilterSnapshot config = compile(List.of("token"), Map.of("token", List.of("Example.com/admin")));
+        PathRuleTable rules = config.getPathRules();
+        int id = config.getBlockedNames().indexOf("token", 0, "token".length());
+
+        assertTrue(rules.allows(id, "example.com", "/admin/users"));
+        assertTrue(rules.allows(id, "www.EXAMPLE.com", "/admin"));
+        assertFalse(rules.allows(id, "example.org", "/admin"));
+        assertFalse(rules.allows(id, "notexample.com", "/admin"));
+        assertFalse(rules.allows(id, "example.com", "/"));
+    }
+
+    @Test
+    void rootConditionMatchesEveryPathAndUnconditionalNamesAlwaysMatch() {
+        FilterSnapshot config = compile(List.of("a", "b"), Map.of("a", List.of("example.com")));
+        PathRuleTable rules = config.getPathRules();
+        int a = config.getBlockedNames().indexOf("a", 0, 1);
+        int b = config.getBlockedNames().indexOf("b", 0, 1);
+
+        assertTrue(rules.allows(a, "example.com", "/anything"));
+        assertFalse(rules.allows(a, "other.test", "/anything"));
+        assertFalse(rules.isConditional(b));
+        assertTrue(rules.allows(b, "other.test", "/anything"));
+    }
+
+    @Test
+    void oneResolutionCoversEveryNameAcrossHostTries() {
+        FilterSnapshot config = compile(List.of("a", "b", "c", "d"), Map.of(
+                "a", List.of("/api/", "/zeta/", "/beta/"),
+                "b", List.of("example.com/admin/"),
+                "c", List.of("shop.example.com/cart/", "/api/v2/"),
+                "d", List.of("other.test/api/")));
+        PathRuleTable rules = config.getPathRules();
+        int a = config.getBlockedNames().indexOf("a", 0, 1);
+        int b = config.getBlockedNames().indexOf("b", 0, 1);
+        int c = config.getBlockedNames().indexOf("c", 0, 1);
+        int d = config.getBlockedNames().indexOf("d", 0, 1);
+
+        boolean[] api = rules.matchingIds("Shop.Example.com", "/api/v2/items?x=/admin/");
+        assertTrue(api[a]);
+        assertFalse(api[b]);
+        assertTrue(api[c]);
+        assertFalse(api[d]);
+
+        boolean[] admin = rules.matchingIds("shop.example.com", "/admin/users");
+        assertFalse(admin[a]);
+        assertTrue(admin[b]);
+        assertFalse(admin[c]);
+
+        assertTrue(rules.matchingIds("shop.example.com", "/cart")[c]);
+        assertFalse(rules.matchingIds("example.com", "/cart")[c]);
+        assertTrue(rules.matchingIds("x.com", "/zeta/1")[a]);
+        assertTrue(rules.matchingIds("x.com", "/beta")[a]);
+    }
+
+    @Test
+    void handlerOnlyRemovesConditionalCookiesUnderTheirPaths() {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        manager.addCookie("session");
+        manager.addCookie("tracker");
+        manager.setPathConditions("session", List.of("/api/"));
+        DecisionLog log = new DecisionLog();
+        CookieFilterHandler handler = MontoyaStubs.handler(manager, log);
+
+        assertEquals(List.of("keep"), cookiesLeft(handler, "/api/items", "session=1", "tracker=2", "keep=3"));
+        assertEquals(List.of("session", "keep"),
+                cookiesLeft(handler, "/static/app.js", "session=1", "tracker=2", "keep=3"));
+        assertEquals(List.of("session", "keep"), cookiesLeft(handler, "/login", "session=1", "keep=3"));
+
+        List<FilterDecision> decisions = log.snapshot();
+        assertEquals(DecisionOutcome.PATH_NOT_MATCHED, decisions.get(decisions.size() - 1).getOutcome());
+    }
+
+    private static FilterSnapshot compile(List<String> cookies, Map<String, List<String>> conditions) {
+        CookieBlocklistManager manager = new CookieBlocklistManager();
+        cookies.forEach(manager::addCookie);
+        conditions.forEach(manager::setPathConditions);
+        return manager.snapshot();
+    }
+
+    private static List<String> cookiesLeft(CookieFilterHandler handler, String path, String... cookies) {
+        return MontoyaStubs.fake(handler.handleHttpRequestToBeSent(
+                MontoyaStubs.request("app.test", path, cookies)).request()).cookieNames();
+    }
+}
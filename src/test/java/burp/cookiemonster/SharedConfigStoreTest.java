@@ -0,0 +1,167 @@
+package burp.cookiemonster;
+
+import burp.api.montoya.logging.Logging;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two shared-config stores against one temp file, as two Burp instances would.
+ */
+class SharedConfigStoreTest {
+    private static final int GENERATION_OFFSET = 8;
+    private static final long TIMEOUT_MS = 5000;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<SharedConfigStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void shutdownStores() {
+        for (SharedConfigStore store : stores) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void configurationRoundTripsBetweenInstances() throws Exception {
+        Path file = tempDir.resolve("shared-config.mmap");
+        CookieBlocklistManager first = new CookieBlocklistManager();
+        first.addCookie("tracker");
+        first.setPathConditions("tracker", List.of("/api/"));
+        first.putOverride("lang", "en", OverrideType.ADD, "example.com");
+        first.putOverride("theme", "dark mode", OverrideType.REPLACE, null);
+        first.setFilterMode(DomainFilterMode.CUSTOM_DOMAINS);
+        first.addCustomDomain("example.com");
+        store(first, file).enable();
+        awaitTrue(() -> generation(file) != 0, "first instance never published");
+
+        CookieBlocklistManager second = new CookieBlocklistManager();
+        store(second, file).enable();
+        awaitTrue(() -> second.isBlocked("tracker"), "second instance never adopted the file");
+        assertEquals(Set.of("/api/"), second.getPathConditions("tracker"));
+        assertEquals("lang=en", second.getOverrides().get(0).getPair());
+        assertEquals("example.com", second.getOverrides().get(0).getDomain());
+        assertEquals("theme=dark mode", second.getOverrides().get(1).getPair());
+        assertNull(second.getOverrides().get(1).getDomain());
+        assertEquals(DomainFilterMode.CUSTOM_DOMAINS, second.getFilterMode());
+        assertEquals(Set.of("example.com"), second.getCustomDomains());
+
+        second.addCookie("session");
+        awaitTrue(() -> first.isBlocked("session"), "first instance never saw the update");
+        assertEquals(0, generation(file) & 1);
+    }
+
+    @Test
+    void writerRecoversFromGenerationLeftOddByDeadInstance() throws Exception {
+        Path file = tempDir.resolve("shared-config.mmap");
+        CookieBlocklistManager first = new CookieBlocklistManager();
+        first.addCookie("tracker");
+        store(first, file).enable();
+        awaitTrue(() -> generation(file) != 0, "first instance never published");
+
+        CookieBlocklistManager second = new CookieBlocklistManager();
+        store(second, file).enable();
+        awaitTrue(() -> second.isBlocked("tracker"), "second instance never adopted the file");
+
+        // Simulate an instance that died between its two generation stores
+        setGeneration(file, generation(file) + 1);
+
+        first.addCookie("ads");
+        awaitTrue(() -> second.isBlocked("ads"), "update after an odd generation was never seen");
+        assertEquals(0, generation(file) & 1);
+
+        // Sync keeps working in both directions afterwards
+        second.addCookie("session");
+        awaitTrue(() -> first.isBlocked("session"), "sync stopped after recovery");
+    }
+
+    @Test
+    void concurrentEditsFromBothInstancesAreAllKept() throws Exception {
+        Path file = tempDir.resolve("shared-config.mmap");
+        CookieBlocklistManager first = new CookieBlocklistManager();
+        first.addCookie("tracker");
+        store(first, file).enable();
+        awaitTrue(() -> generation(file) != 0, "first instance never published");
+
+        CookieBlocklistManager second = new CookieBlocklistManager();
+        store(second, file).enable();
+        awaitTrue(() -> second.isBlocked("tracker"), "second instance never adopted the file");
+
+        Thread firstEditor = new Thread(() -> addCookies(first, "a"));
+        Thread secondEditor = new Thread(() -> addCookies(second, "b"));
+        firstEditor.start();
+        secondEditor.start();
+        firstEditor.join();
+        secondEditor.join();
+
+        awaitTrue(() -> first.getBlockedCookies().size() == 101 && second.getBlockedCookies().size() == 101,
+                "an edit was lost: " + first.getBlockedCookies().size() + " / " + second.getBlockedCookies().size());
+        assertEquals(first.getBlockedCookies(), second.getBlockedCookies());
+    }
+
+    @Test
+    void mergeKeepsBothSidesOfAConflict() {
+        String base = "ignoreCase=false\nmode=ALL_DOMAINS\ncookie=a\ncookie=b\n";
+        String ours = "ignoreCase=true\nmode=ALL_DOMAINS\ncookie=a\ncookie=c\n";
+        String theirs = "ignoreCase=false\nmode=CUSTOM_DOMAINS\ncookie=a\ncookie=b\ncookie=d\n";
+
+        assertEquals("ignoreCase=true\nmode=CUSTOM_DOMAINS\ncookie=a\ncookie=d\ncookie=c\n",
+                SharedConfigStore.merge(base, ours, theirs));
+    }
+
+    private static void addCookies(CookieBlocklistManager manager, String prefix) {
+        for (int i = 0; i < 50; i++) {
+            manager.addCookie(prefix + i);
+            Thread.yield();
+        }
+    }
+
+    private SharedConfigStore store(CookieBlocklistManager manager, Path file) {
+        Logging logging = MontoyaStubs.api().logging();
+        SharedConfigStore store = new SharedConfigStore(manager, logging, file);
+        stores.add(store);
+        return store;
+    }
+
+    private static long generation(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, GENERATION_OFFSET + 8);
+            return mapped.order(ByteOrder.LITTLE_ENDIAN).getLong(GENERATION_OFFSET);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void setGeneration(Path file, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, GENERATION_OFFSET + 8);
+            mapped.order(ByteOrder.LITTLE_ENDIAN).putLong(GENERATION_OFFSET, generation);
+            mapped.force();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, message);
+            Thread.sleep(10);
+        }
+    }
+}